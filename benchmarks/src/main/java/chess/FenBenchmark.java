@@ -0,0 +1,51 @@
+package chess;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading positions from FEN, through the game manager and straight into a position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FenBenchmark {
+
+    @Param({GameManager.START_FEN, MoveGenerationBenchmark.KIWIPETE, "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"})
+    public String fen;
+
+    private final GameManager gameManager = new GameManager(false);
+    private final Position position = new Position();
+
+    /**
+     * Sets the game state, including the game status the manager works out afterwards.
+     */
+    @Benchmark
+    public GameManager setFENState() {
+        gameManager.setFENState(fen);
+        return gameManager;
+    }
+
+    @Benchmark
+    public long parse() {
+        Fen.parse(fen, 0, fen.length(), position);
+        return position.getHash();
+    }
+
+    @Benchmark
+    public String toFEN() {
+        return Fen.toFEN(gameManager.getPosition());
+    }
+}
@@ -0,0 +1,79 @@
+package chess;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Playing a move and taking it back, going through every legal move of a position in turn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveApplicationBenchmark {
+
+    @Param({GameManager.START_FEN, MoveGenerationBenchmark.KIWIPETE})
+    public String fen;
+
+    private final GameManager gameManager = new GameManager(false);
+    private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] selectedMoves = new int[MoveGenerator.MAX_MOVES];
+    private int legalMoveCount;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        gameManager.setFENState(fen);
+        legalMoveCount = MoveGenerator.generateLegalMoves(gameManager.getPosition(), legalMoves);
+    }
+
+    /**
+     * Plays a move the way two clicks on the board do: the moves of the clicked piece are found, the one to
+     * the second square is picked and the game manager plays it, updating the game status. Board drawing
+     * is left out, it needs a running JavaFX toolkit.
+     */
+    @Benchmark
+    public GameStatus clickMove() {
+        int wanted = nextMove();
+        int count = MoveGenerator.generateLegalMovesFrom(gameManager.getPosition(), Moves.from(wanted),
+                selectedMoves);
+        int move = Moves.NONE;
+        for (int i = 0; i < count && move == Moves.NONE; i++) {
+            if (selectedMoves[i] == wanted) move = selectedMoves[i];
+        }
+        gameManager.playMove(move);
+        GameStatus status = gameManager.getGameStatus();
+        gameManager.undoMove();
+        return status;
+    }
+
+    /**
+     * Plays a move and takes it back on the position alone, the way search and perft do.
+     */
+    @Benchmark
+    public long makeUnmake() {
+        Position position = gameManager.getPosition();
+        position.makeMove(nextMove());
+        long hash = position.getHash();
+        position.unmakeMove();
+        return hash;
+    }
+
+    private int nextMove() {
+        int move = legalMoves[next];
+        next = next + 1 == legalMoveCount ? 0 : next + 1;
+        return move;
+    }
+}
@@ -0,0 +1,93 @@
+package chess;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Move generation for one piece, the way the board asks for it when a piece is clicked, and for a whole position.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+
+    static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @State(Scope.Thread)
+    public static class PositionState {
+        @Param({GameManager.START_FEN, KIWIPETE})
+        public String fen;
+
+        final Position position = new Position();
+        final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        @Setup
+        public void setUp() {
+            Fen.parse(fen, 0, fen.length(), position);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PieceState {
+        @Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+        public String pieceKind;
+
+        final Position position = new Position();
+        final int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Piece piece;
+        int square;
+
+        @Setup
+        public void setUp() {
+            Fen.parse(KIWIPETE, 0, KIWIPETE.length(), position);
+            // White piece codes are the piece kinds.
+            int kind = Position.codeFromFEN(pieceKind.equals("KNIGHT") ? 'N' : pieceKind.charAt(0));
+            square = Long.numberOfTrailingZeros(position.getPieceBoard(kind));
+            piece = Piece.fromCode(kind);
+        }
+    }
+
+    /**
+     * Legal moves of one piece, as Board.getBoardValidMoves finds them.
+     */
+    @Benchmark
+    public int legalMovesFrom(PieceState state) {
+        return MoveGenerator.generateLegalMovesFrom(state.position, state.square, state.moves);
+    }
+
+    /**
+     * Moves of one piece before checking king safety.
+     */
+    @Benchmark
+    public int basicMoves(PieceState state) {
+        return state.piece.getBasicMoves(state.square, state.position, state.moves, 0);
+    }
+
+    /**
+     * Legal moves of every piece of the side to play.
+     */
+    @Benchmark
+    public int legalMoves(PositionState state) {
+        return MoveGenerator.generateLegalMoves(state.position, state.moves);
+    }
+
+    /**
+     * Moves of every piece of the side to play before checking king safety.
+     */
+    @Benchmark
+    public int pseudoLegalMoves(PositionState state) {
+        return MoveGenerator.generateMoves(state.position, state.moves);
+    }
+}
@@ -0,0 +1,44 @@
+package chess;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Perft, counting every node of the legal move tree, which exercises move generation and make/unmake together.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerftBenchmark {
+
+    @Param({GameManager.START_FEN, MoveGenerationBenchmark.KIWIPETE})
+    public String fen;
+
+    @Param({"3", "4"})
+    public int depth;
+
+    private final Position position = new Position();
+
+    @Setup
+    public void setUp() {
+        Fen.parse(fen, 0, fen.length(), position);
+    }
+
+    @Benchmark
+    public long perft() {
+        return Perft.perft(position, depth);
+    }
+}
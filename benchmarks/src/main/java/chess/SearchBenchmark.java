@@ -0,0 +1,54 @@
+package chess;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fixed depth searches from an empty transposition table, so every run searches the same tree.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final int HASH_MEGABYTES = 16;
+
+    @Param({GameManager.START_FEN, MoveGenerationBenchmark.KIWIPETE})
+    public String fen;
+
+    @Param({"5", "6"})
+    public int depth;
+
+    private final Position position = new Position();
+    private final TranspositionTable table = new TranspositionTable(HASH_MEGABYTES);
+    private final Search search = new Search(table);
+
+    @Setup
+    public void setUp() {
+        Fen.parse(fen, 0, fen.length(), position);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @Benchmark
+    public SearchResult search() {
+        return search.search(position, depth, 0, 0);
+    }
+}
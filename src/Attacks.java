@@ -0,0 +1,246 @@
+public final class Attacks {
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_OFFSETS = {{-2, 1}, {-2, -1}, {-1, 2}, {-1, -2}, {2, 1}, {2, -1}, {1, 2}, {1, -2}};
+    private static final int[][] KING_OFFSETS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}, {1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    private static final long[] KNIGHT_ATTACKS = new long[Position.SQUARE_COUNT];
+    private static final long[] KING_ATTACKS = new long[Position.SQUARE_COUNT];
+    private static final long[] WHITE_PAWN_ATTACKS = new long[Position.SQUARE_COUNT];
+    private static final long[] BLACK_PAWN_ATTACKS = new long[Position.SQUARE_COUNT];
+
+    private static final long[] ROOK_MASKS = new long[Position.SQUARE_COUNT];
+    private static final int[] ROOK_SHIFTS = new int[Position.SQUARE_COUNT];
+    private static final int[] ROOK_OFFSETS = new int[Position.SQUARE_COUNT];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[Position.SQUARE_COUNT];
+    private static final int[] BISHOP_SHIFTS = new int[Position.SQUARE_COUNT];
+    private static final int[] BISHOP_OFFSETS = new int[Position.SQUARE_COUNT];
+    private static final long[] BISHOP_TABLE;
+
+    // Indexed by from * SQUARE_COUNT + to, empty when the squares do not share a rank, file or diagonal.
+    private static final long[] BETWEEN = new long[Position.SQUARE_COUNT * Position.SQUARE_COUNT];
+    private static final long[] LINE = new long[Position.SQUARE_COUNT * Position.SQUARE_COUNT];
+
+    // Magic multipliers found offline by random search, they map every blocker subset of a square's mask
+    // to a table index without destructive collisions.
+    private static final long[] ROOK_MAGICS = {
+            0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+            0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+            0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+            0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+            0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+            0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+            0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+            0x0442000A00049020L, 0x2100040080020080L, 0x0800120400900148L, 0x0010040A00128541L,
+            0x2800804000800030L, 0x1010002000400041L, 0x4000200011004100L, 0x0610008410800800L,
+            0x0400802402800800L, 0xC100020080800400L, 0x0002000802000401L, 0x0182085882000401L,
+            0x0220204000808000L, 0x2860100040024022L, 0x0001002004110040L, 0x99101042000A0020L,
+            0x0004080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+            0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+            0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+            0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+            0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0xA010041108003100L, 0x006082020A002900L, 0x6810010619200000L, 0x08281A0520000408L,
+            0x0001104001000400L, 0x0018901008048400L, 0x00040A0210245280L, 0x000200210808A402L,
+            0x9140048410821200L, 0x0800091010820041L, 0x20504804832202C0L, 0x0100091401081000L,
+            0x8021011140000012L, 0x0810020804450400L, 0x208B0542109008A2L, 0x0080084A08040204L,
+            0x0040E2A80811244CL, 0x2505022008008108L, 0x0430220100420040L, 0x010A040420220040L,
+            0x1105000290400000L, 0x0093001200822120L, 0x4000A62048043004L, 0x280120048A015004L,
+            0x006090002A020814L, 0x44042000240800D0L, 0x01102800040A4400L, 0x1004080080220040L,
+            0x0001001011004024L, 0x0010044000805040L, 0x0914041200820100L, 0x0004821012821480L,
+            0x0024040500C05021L, 0x0088611002080200L, 0x0116080A00040020L, 0x4000020080080080L,
+            0x2450450140840040L, 0x0000880201484100L, 0x0222020404020092L, 0x8081110600002E00L,
+            0x2842101105000801L, 0x1100809008001025L, 0x00020202221C0400L, 0x0422014022009020L,
+            0x0210046102100C00L, 0xC004008082029102L, 0x00AA461801101200L, 0x0404080080201108L,
+            0x020542108C205002L, 0x0410544804100100L, 0x0040910841100000L, 0x0400200042021100L,
+            0x00004204850400C0L, 0x0200100410A42102L, 0x1040020801210102L, 0x0805040410420000L,
+            0x2884804130100200L, 0x800C262201242000L, 0x1058000194108800L, 0x0014221054420204L,
+            0x0104000012A02200L, 0x0200881003300100L, 0x0140400202840100L, 0x0402020801010201L
+    };
+
+    static {
+        for (int square = 0; square < Position.SQUARE_COUNT; square++) {
+            KNIGHT_ATTACKS[square] = stepAttacks(square, KNIGHT_OFFSETS);
+            KING_ATTACKS[square] = stepAttacks(square, KING_OFFSETS);
+            WHITE_PAWN_ATTACKS[square] = stepAttacks(square, new int[][] {{-1, 1}, {-1, -1}});
+            BLACK_PAWN_ATTACKS[square] = stepAttacks(square, new int[][] {{1, 1}, {1, -1}});
+        }
+        ROOK_TABLE = initMagics(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = initMagics(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+        initLines();
+    }
+
+    private Attacks() {
+    }
+
+    /**
+     * Gets the squares a rook attacks from a square, stopping at (and including) the first blocker in each direction.
+     * @param square of rook
+     * @param occupancy bitboard of all pieces on the board
+     * @return attacked squares as a bitboard
+     */
+    public static long rookAttacks(int square, long occupancy) {
+        int index = (int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_TABLE[ROOK_OFFSETS[square] + index];
+    }
+
+    /**
+     * Gets the squares a bishop attacks from a square, stopping at (and including) the first blocker in each direction.
+     * @param square of bishop
+     * @param occupancy bitboard of all pieces on the board
+     * @return attacked squares as a bitboard
+     */
+    public static long bishopAttacks(int square, long occupancy) {
+        int index = (int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + index];
+    }
+
+    /**
+     * Gets the squares a queen attacks from a square.
+     * @param square of queen
+     * @param occupancy bitboard of all pieces on the board
+     * @return attacked squares as a bitboard
+     */
+    public static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    /**
+     * Gets the squares a knight attacks from a square.
+     * @param square of knight
+     * @return attacked squares as a bitboard
+     */
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * Gets the squares a king attacks from a square.
+     * @param square of king
+     * @return attacked squares as a bitboard
+     */
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Gets the squares a pawn attacks diagonally from a square.
+     * @param square of pawn
+     * @param isWhite color of pawn
+     * @return attacked squares as a bitboard
+     */
+    public static long pawnAttacks(int square, boolean isWhite) {
+        return isWhite ? WHITE_PAWN_ATTACKS[square] : BLACK_PAWN_ATTACKS[square];
+    }
+
+    /**
+     * Gets the squares strictly between two squares on the same rank, file or diagonal.
+     * @param from one end
+     * @param to other end
+     * @return squares between as a bitboard, empty if the squares are not aligned or are adjacent
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from * Position.SQUARE_COUNT + to];
+    }
+
+    /**
+     * Gets the whole rank, file or diagonal running through two squares, from edge to edge.
+     * @param from one square
+     * @param to other square
+     * @return squares of the line as a bitboard, empty if the squares are not aligned
+     */
+    public static long line(int from, int to) {
+        return LINE[from * Position.SQUARE_COUNT + to];
+    }
+
+    private static long stepAttacks(int square, int[][] offsets) {
+        long attacks = 0L;
+        int rank = Position.rankOf(square);
+        int file = Position.fileOf(square);
+        for (int[] offset : offsets) {
+            int r = rank + offset[0];
+            int f = file + offset[1];
+            if (isOnBoard(r, f)) attacks |= 1L << Position.square(r, f);
+        }
+        return attacks;
+    }
+
+    /**
+     * Walks rays out from a square one step at a time. Only used to build the lookup tables.
+     * @param square to walk from
+     * @param directions rank and file steps to walk
+     * @param occupancy pieces that stop a ray
+     * @param isMask if true, leaves out the last square of each ray, since an edge square never blocks anything
+     * @return squares reached as a bitboard
+     */
+    private static long slidingAttacks(int square, int[][] directions, long occupancy, boolean isMask) {
+        long attacks = 0L;
+        int rank = Position.rankOf(square);
+        int file = Position.fileOf(square);
+        for (int[] direction : directions) {
+            int r = rank + direction[0];
+            int f = file + direction[1];
+            while (isOnBoard(r, f)) {
+                if (isMask && !isOnBoard(r + direction[0], f + direction[1])) break;
+                long bit = 1L << Position.square(r, f);
+                attacks |= bit;
+                if ((occupancy & bit) != 0) break;
+                r += direction[0];
+                f += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Fills a shared attack table indexed by each square's magic multiplier.
+     * @return attack table, each square's slice starting at its offset
+     */
+    private static long[] initMagics(int[][] directions, long[] masks, long[] magics, int[] shifts, int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < Position.SQUARE_COUNT; square++) {
+            masks[square] = slidingAttacks(square, directions, 0L, true);
+            shifts[square] = Long.SIZE - Long.bitCount(masks[square]);
+            offsets[square] = size;
+            size += 1 << Long.bitCount(masks[square]);
+        }
+        long[] table = new long[size];
+        for (int square = 0; square < Position.SQUARE_COUNT; square++) {
+            long mask = masks[square];
+            long subset = 0L;
+            do {
+                int index = (int) ((subset * magics[square]) >>> shifts[square]);
+                table[offsets[square] + index] = slidingAttacks(square, directions, subset, false);
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+        }
+        return table;
+    }
+
+    private static boolean isOnBoard(int rank, int file) {
+        return rank >= 0 && rank < Position.BOARD_SIZE && file >= 0 && file < Position.BOARD_SIZE;
+    }
+
+    private static void initLines() {
+        for (int from = 0; from < Position.SQUARE_COUNT; from++) {
+            for (int to = 0; to < Position.SQUARE_COUNT; to++) {
+                if (from == to) continue;
+                long ends = (1L << from) | (1L << to);
+                int index = from * Position.SQUARE_COUNT + to;
+                if ((rookAttacks(from, 0L) & (1L << to)) != 0) {
+                    LINE[index] = (rookAttacks(from, 0L) & rookAttacks(to, 0L)) | ends;
+                    BETWEEN[index] = rookAttacks(from, 1L << to) & rookAttacks(to, 1L << from);
+                } else if ((bishopAttacks(from, 0L) & (1L << to)) != 0) {
+                    LINE[index] = (bishopAttacks(from, 0L) & bishopAttacks(to, 0L)) | ends;
+                    BETWEEN[index] = bishopAttacks(from, 1L << to) & bishopAttacks(to, 1L << from);
+                }
+            }
+        }
+    }
+}
@@ -9,10 +9,12 @@ public class Board extends GridPane {
     //private GameManager gm;
     private final int BOARD_SIZE_PIXELS = 700;
     private final Tile[][] tiles;
+    private final Position position;
     private Move selectedPosition;
     private final ArrayList<Tile> highlightedTiles = new ArrayList<>();
 
-    public Board(GMOnClickHandler clickHandler) {
+    public Board(Position position, GMOnClickHandler clickHandler) {
+        this.position = position;
         tiles = new Tile[BOARD_SIZE][BOARD_SIZE];
         for (int i = 0; i < BOARD_SIZE; i++) {
             for (int j = 0; j < BOARD_SIZE; j++) {
@@ -28,6 +30,21 @@ public class Board extends GridPane {
         }
     }
 
+    /**
+     * Updates every tile whose piece differs from the position this board displays.
+     */
+    public void loadPosition() {
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                int code = position.getPiece(Position.square(i, j));
+                Piece piece = tiles[i][j].getPiece();
+                if ((piece == null ? Position.EMPTY : piece.getCode()) != code) {
+                    tiles[i][j].setPiece(Piece.fromCode(code));
+                }
+            }
+        }
+    }
+
     /**
      * Visually rotates board 180 degrees.
      */
@@ -55,33 +72,17 @@ public class Board extends GridPane {
     }
 
     /**
-     * Gets valid moves from a given piece, including checking game rules via the game manager.
+     * Gets legal moves from a given piece, written as packed moves into a buffer owned by the caller.
+     * Pieces of the side not to play have no moves.
      * @param rank of piece to get moves from
      * @param file  of piece to get moves from
-     * @return valid moves
+     * @param moves buffer to write packed moves into, at least MoveGenerator.MAX_MOVES long
+     * @return number of moves written
      */
-    public ArrayList<Move> getBoardValidMoves(int rank, int file) {
-        ArrayList<Move> moves = new ArrayList<>();
+    public int getBoardValidMoves(int rank, int file, int[] moves) {
         Piece piece = tiles[rank][file].getPiece();
-        if (piece == null) return moves;
-        moves = piece.getBasicMoves(rank, file, this::boardValidate);
-        return moves;
-    }
-
-    private MoveStatus boardValidate(boolean isWhite, Move move) {
-        if (!this.isValidPosition(move.rank, move.file)) {
-            return MoveStatus.INVALID;
-        }
-        if (this.isEmptyPosition(move.rank, move.file)) {
-            return MoveStatus.VALID;
-        }
-        if (this.isOccupiedByFriendly(isWhite, move.rank, move.file)) {
-            return MoveStatus.INVALID;
-        }
-        if (this.isOccupiedByEnemy(isWhite, move.rank, move.file)) {
-            return MoveStatus.VALID_STOP;
-        }
-        return MoveStatus.VALID;
+        if (piece == null || piece.isWhite() != position.isWhiteToPlay()) return 0;
+        return MoveGenerator.generateLegalMovesFrom(position, Position.square(rank, file), moves);
     }
 
     /**
@@ -147,68 +148,6 @@ public class Board extends GridPane {
         return tiles[move.rank][move.file];
     }
 
-    /**
-     * Sets a given position with a piece. Can be null value.
-     * @param file to place piece
-     * @param rank to place piece
-     * @param piece to place
-     */
-    protected void setPieceAtPosition(int rank, int file, Piece piece) {
-        tiles[rank][file].setPiece(piece);
-    }
-
-    /**
-     * Gets Piece from given position.
-     * @param rank of position
-     * @param file of position
-     * @return Piece or null if none exist on given position
-     */
-    protected Piece getPieceAtPosition(int rank, int file) {
-        return tiles[rank][file].getPiece();
-    }
-
-    /**
-     * Evaluates if a given postion is occupied by any piece.
-     * @param rank of position to check
-     * @param file of position to check
-     * @return true if empty, false if not
-     */
-    private boolean isEmptyPosition(int rank, int file) {
-        return tiles[rank][file].getPiece() == null;
-    }
-
-    /**
-     * Evaluates if a given position is occupied by an enemy piece.
-     * @param isWhite color of piece inquiring
-     * @param rank of piece to check
-     * @param file of piece to check
-     * @return true if enemy, false if not
-     */
-    private boolean isOccupiedByEnemy(boolean isWhite, int rank, int file){
-        return tiles[rank][file].getPiece().isWhite() != isWhite;
-    }
-
-    /**
-     * Evaluates if a given position is occupied by a friendly piece.
-     * @param isWhite color of piece inquiring
-     * @param rank of piece to check
-     * @param file of piece to check
-     * @return true if friendly, false if not
-     */
-    private boolean isOccupiedByFriendly(boolean isWhite, int rank, int file){
-        return tiles[rank][file].getPiece().isWhite() == isWhite;
-    }
-
-    /**
-     * Evaluates if a given position is valid on this board (i.e. not out of bounds).
-     * @param rank to check
-     * @param file to check
-     * @return true if valid, false if not
-     */
-    private boolean isValidPosition(int rank, int file) {
-        return rank < BOARD_SIZE && rank >= 0 && file < BOARD_SIZE && file >= 0;
-    }
-
     /**
      * Draws the board using UNICODE characters.
      */
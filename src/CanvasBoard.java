@@ -0,0 +1,184 @@
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CanvasBoard extends Canvas {
+
+    public final int BOARD_SIZE = 8;
+
+    private static final Color LIGHT = Color.rgb(238, 238, 210);
+    private static final Color DARK = Color.rgb(118, 150, 86);
+    private static final Color HIGHLIGHT = Color.rgb(186, 202, 68);
+    private static final double HIGHLIGHT_OPACITY = 0.75;
+    // Never a piece code, so a square holding it is always drawn again.
+    private static final int UNDRAWN = -2;
+
+    private final GraphicsContext graphics;
+    private final double tileSize;
+    private final int[] drawnCodes = new int[Position.SQUARE_COUNT];
+    // The position last shown, only touched on the JavaFX thread.
+    private Snapshot shown = new Snapshot(new int[Position.SQUARE_COUNT], true, 0L);
+    // The newest position shown from another thread, waiting to be drawn. Older ones are skipped.
+    private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+    private long highlightedSquares;
+    private long drawnHighlights;
+    private boolean isFlipped;
+    private boolean isFollowingSideToPlay;
+
+    /**
+     * Pieces, side to play and highlights copied from a position, so the JavaFX thread can draw them while the
+     * game goes on.
+     */
+    private static final class Snapshot {
+        final int[] codes;
+        final boolean isWhiteToPlay;
+        final long highlightedSquares;
+
+        Snapshot(int[] codes, boolean isWhiteToPlay, long highlightedSquares) {
+            this.codes = codes;
+            this.isWhiteToPlay = isWhiteToPlay;
+            this.highlightedSquares = highlightedSquares;
+        }
+    }
+
+    /**
+     * Constructor for a board drawn on one canvas instead of a node per tile, so many boards can be
+     * shown at once. Create it on the JavaFX thread. Nothing is drawn until a position is shown.
+     * @param sizePixels width and height of the board
+     */
+    public CanvasBoard(double sizePixels) {
+        super(sizePixels, sizePixels);
+        Arrays.fill(shown.codes, Position.EMPTY);
+        graphics = getGraphicsContext2D();
+        tileSize = sizePixels / BOARD_SIZE;
+        Arrays.fill(drawnCodes, UNDRAWN);
+    }
+
+    /**
+     * Sets a handler told about clicks, already turned into board squares.
+     * @param clickHandler to tell
+     */
+    public void setOnSquareClicked(GMOnSquareClickHandler clickHandler) {
+        setOnMouseClicked((event) -> {
+            int column = (int) (event.getX() / tileSize);
+            int row = (int) (event.getY() / tileSize);
+            if (column < 0 || column >= BOARD_SIZE || row < 0 || row >= BOARD_SIZE) return;
+            clickHandler.handleClick(toBoard(row), toBoard(column));
+        });
+    }
+
+    /**
+     * Shows a position with some squares highlighted. It may be called from any thread, such as the one a
+     * headless or engine game plays its moves on: the pieces are copied at once and drawn on the JavaFX thread.
+     * When moves come faster than they are drawn, only the newest position is drawn.
+     * @param position to show, only read during the call
+     * @param highlightedSquares bitboard of squares to highlight
+     */
+    public void showPosition(Position position, long highlightedSquares) {
+        int[] codes = new int[Position.SQUARE_COUNT];
+        for (int square = 0; square < Position.SQUARE_COUNT; square++) {
+            codes[square] = position.getPiece(square);
+        }
+        Snapshot snapshot = new Snapshot(codes, position.isWhiteToPlay(), highlightedSquares);
+        if (Platform.isFxApplicationThread()) {
+            pending.set(null);
+            draw(snapshot);
+        } else if (pending.getAndSet(snapshot) == null) {
+            Platform.runLater(() -> {
+                Snapshot newest = pending.getAndSet(null);
+                if (newest != null) draw(newest);
+            });
+        }
+    }
+
+    private void draw(Snapshot snapshot) {
+        shown = snapshot;
+        setHighlightedSquares(snapshot.highlightedSquares);
+        if (isFollowingSideToPlay) setFlipped(!snapshot.isWhiteToPlay);
+        refresh();
+    }
+
+    /**
+     * Draws every square whose piece or highlight changed since it was last drawn. After a quiet move
+     * that is two squares, after castling four. Call it on the JavaFX thread.
+     */
+    public void refresh() {
+        long changedHighlights = highlightedSquares ^ drawnHighlights;
+        for (int square = 0; square < Position.SQUARE_COUNT; square++) {
+            int code = shown.codes[square];
+            if (code != drawnCodes[square] || (changedHighlights & (1L << square)) != 0) {
+                drawSquare(square, code);
+            }
+        }
+        drawnHighlights = highlightedSquares;
+    }
+
+    /**
+     * Sets which squares are highlighted, shown on the next refresh. Call it on the JavaFX thread.
+     * @param squares bitboard of squares to highlight
+     */
+    public void setHighlightedSquares(long squares) {
+        highlightedSquares = squares;
+    }
+
+    public long getHighlightedSquares() {
+        return highlightedSquares;
+    }
+
+    /**
+     * Turns the board so black is at the bottom or not. Turning changes where every square is drawn,
+     * so the whole board is drawn again on the next refresh. Call it on the JavaFX thread.
+     * @param isFlipped true to show black at the bottom
+     */
+    public void setFlipped(boolean isFlipped) {
+        if (this.isFlipped == isFlipped) return;
+        this.isFlipped = isFlipped;
+        Arrays.fill(drawnCodes, UNDRAWN);
+    }
+
+    public boolean isFlipped() {
+        return isFlipped;
+    }
+
+    /**
+     * Sets whether the board turns after every move so the side to play is at the bottom, like the tile board.
+     * @param isFollowingSideToPlay true to turn with the side to play
+     */
+    public void setFollowingSideToPlay(boolean isFollowingSideToPlay) {
+        this.isFollowingSideToPlay = isFollowingSideToPlay;
+    }
+
+    private void drawSquare(int square, int code) {
+        int rank = Position.rankOf(square);
+        int file = Position.fileOf(square);
+        double x = toScreen(file) * tileSize;
+        double y = toScreen(rank) * tileSize;
+        graphics.setFill((rank + file) % 2 == 0 ? LIGHT : DARK);
+        graphics.fillRect(x, y, tileSize, tileSize);
+        if ((highlightedSquares & (1L << square)) != 0) {
+            graphics.setGlobalAlpha(HIGHLIGHT_OPACITY);
+            graphics.setFill(HIGHLIGHT);
+            graphics.fillRect(x, y, tileSize, tileSize);
+            graphics.setGlobalAlpha(1.0);
+        }
+        if (code != Position.EMPTY) {
+            graphics.drawImage(PieceImages.getImage(Piece.fromCode(code)), x, y, tileSize, tileSize);
+        }
+        drawnCodes[square] = code;
+    }
+
+    /**
+     * Converts a rank or file to a row or column on screen. Flipping mirrors both, so it is its own inverse.
+     */
+    private int toScreen(int index) {
+        return isFlipped ? BOARD_SIZE - 1 - index : index;
+    }
+
+    private int toBoard(int screenIndex) {
+        return toScreen(screenIndex);
+    }
+}
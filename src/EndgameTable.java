@@ -0,0 +1,417 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public class EndgameTable {
+
+    public static final int MAX_PIECES = 5;
+    public static final String DISTANCE_SUFFIX = ".dtm";
+    public static final String RESULT_SUFFIX = ".wdl";
+
+    // Stored distance bytes: 0 is a draw, 255 a position that cannot occur or is stalemate, anything else is
+    // the distance to mate in plies plus one. Even distances lose for the side to play, odd distances win.
+    static final int UNDECIDED = 0;
+    static final int UNUSED = 255;
+    static final int MAX_DISTANCE = 253;
+
+    // Packed results, 2 bits per position.
+    public static final int DRAW = 0;
+    public static final int WIN = 1;
+    public static final int LOSS = 2;
+
+    private static final String PIECE_LETTERS = "PNBRQK";
+    // Order pieces are listed in on each side of a name, strongest first.
+    private static final String NAME_ORDER = "QRBNP";
+    private static final int[] NAME_VALUES = {9, 5, 3, 3, 1};
+    private static final int CODE_BITS = 4;
+    private static final int BLACK_KEY_SHIFT = Position.PIECE_KIND_COUNT * CODE_BITS;
+
+    // The white king is moved by symmetry into one of these squares: without pawns a triangle of 10 squares,
+    // with pawns the 32 squares of files a to d, as pawns only allow mirroring left to right.
+    private static final int[] PAWNLESS_KING_INDEX = new int[Position.SQUARE_COUNT];
+    private static final int[] PAWNLESS_KING_SQUARES = new int[10];
+    private static final int[] PAWN_KING_INDEX = new int[Position.SQUARE_COUNT];
+    private static final int[] PAWN_KING_SQUARES = new int[32];
+    private static final int MIRROR = 1;
+    private static final int FLIP = 2;
+    private static final int TRANSPOSE = 4;
+
+    static {
+        int pawnless = 0;
+        int pawn = 0;
+        for (int square = 0; square < Position.SQUARE_COUNT; square++) {
+            int rank = Position.rankOf(square);
+            int file = Position.fileOf(square);
+            PAWNLESS_KING_INDEX[square] = -1;
+            PAWN_KING_INDEX[square] = -1;
+            if (file > 3) continue;
+            PAWN_KING_SQUARES[pawn] = square;
+            PAWN_KING_INDEX[square] = pawn++;
+            if (rank <= file) {
+                PAWNLESS_KING_SQUARES[pawnless] = square;
+                PAWNLESS_KING_INDEX[square] = pawnless++;
+            }
+        }
+    }
+
+    private final String name;
+    private final int[] codes;
+    private final int pieceCount;
+    private final boolean hasPawns;
+    private final int[] kingIndex;
+    private final int[] kingSquares;
+    private final int size;
+    private final long materialKey;
+    private MappedByteBuffer distances;
+    private MappedByteBuffer results;
+
+    /**
+     * Constructor for the indexing of one set of material, named like "KQvKR" with white's pieces before the 'v'.
+     * Names are put in canonical form, so "KvKQ" and "KQvK" are the same table.
+     * @param name of material, 3 to 5 pieces including both kings
+     */
+    public EndgameTable(String name) {
+        this.name = canonicalName(name);
+        int split = this.name.indexOf('v');
+        String white = this.name.substring(1, split);
+        String black = this.name.substring(split + 2);
+        pieceCount = 2 + white.length() + black.length();
+        codes = new int[pieceCount];
+        codes[0] = Position.pieceCode(Position.KING, true);
+        codes[1] = Position.pieceCode(Position.KING, false);
+        for (int i = 0; i < white.length(); i++) {
+            codes[2 + i] = Position.pieceCode(PIECE_LETTERS.indexOf(white.charAt(i)), true);
+        }
+        for (int i = 0; i < black.length(); i++) {
+            codes[2 + white.length() + i] = Position.pieceCode(PIECE_LETTERS.indexOf(black.charAt(i)), false);
+        }
+        hasPawns = this.name.indexOf('P') >= 0;
+        kingIndex = hasPawns ? PAWN_KING_INDEX : PAWNLESS_KING_INDEX;
+        kingSquares = hasPawns ? PAWN_KING_SQUARES : PAWNLESS_KING_SQUARES;
+        size = kingSquares.length * (1 << (6 * (pieceCount - 1))) * 2;
+        long key = 0L;
+        for (int i = 2; i < pieceCount; i++) {
+            key += 1L << keyShift(codes[i]);
+        }
+        materialKey = key;
+    }
+
+    /**
+     * Puts a material name in canonical form: pieces on each side strongest first, and the stronger side first.
+     * @param name of material such as "KRvKQ"
+     * @return canonical name such as "KQvKR"
+     */
+    public static String canonicalName(String name) {
+        int split = name.indexOf('v');
+        if (split < 1 || name.charAt(0) != 'K' || split + 1 >= name.length() || name.charAt(split + 1) != 'K') {
+            throw new IllegalArgumentException("Illegal material given: " + name);
+        }
+        String white = sortSide(name.substring(1, split), name);
+        String black = sortSide(name.substring(split + 2), name);
+        int count = 2 + white.length() + black.length();
+        if (count < 3 || count > MAX_PIECES) throw new IllegalArgumentException("Illegal material given: " + name);
+        return compareSides(white, black) >= 0 ? "K" + white + "vK" + black : "K" + black + "vK" + white;
+    }
+
+    private static String sortSide(String side, String name) {
+        char[] letters = side.toCharArray();
+        for (char letter : letters) {
+            if (NAME_ORDER.indexOf(letter) < 0) throw new IllegalArgumentException("Illegal material given: " + name);
+        }
+        for (int i = 1; i < letters.length; i++) {
+            for (int j = i; j > 0 && NAME_ORDER.indexOf(letters[j]) < NAME_ORDER.indexOf(letters[j - 1]); j--) {
+                char swap = letters[j];
+                letters[j] = letters[j - 1];
+                letters[j - 1] = swap;
+            }
+        }
+        return new String(letters);
+    }
+
+    private static int compareSides(String first, String second) {
+        int firstValue = 0;
+        int secondValue = 0;
+        for (int i = 0; i < first.length(); i++) firstValue += NAME_VALUES[NAME_ORDER.indexOf(first.charAt(i))];
+        for (int i = 0; i < second.length(); i++) secondValue += NAME_VALUES[NAME_ORDER.indexOf(second.charAt(i))];
+        if (firstValue != secondValue) return Integer.compare(firstValue, secondValue);
+        if (first.length() != second.length()) return Integer.compare(first.length(), second.length());
+        for (int i = 0; i < first.length(); i++) {
+            int order = NAME_ORDER.indexOf(second.charAt(i)) - NAME_ORDER.indexOf(first.charAt(i));
+            if (order != 0) return order;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the tables a move can lead to, by a capture or a promotion. Bare kings are left out, as they are
+     * always a draw.
+     * @return canonical names of smaller or promoted material
+     */
+    public Set<String> getDependencies() {
+        Set<String> dependencies = new LinkedHashSet<>();
+        int split = name.indexOf('v');
+        String white = name.substring(1, split);
+        String black = name.substring(split + 2);
+        addDependencies(white, black, false, dependencies);
+        addDependencies(black, white, true, dependencies);
+        return dependencies;
+    }
+
+    private static void addDependencies(String side, String other, boolean isSwapped, Set<String> dependencies) {
+        for (int i = 0; i < side.length(); i++) {
+            String removed = side.substring(0, i) + side.substring(i + 1);
+            if (removed.length() + other.length() > 0) addDependency(removed, other, isSwapped, dependencies);
+            if (side.charAt(i) != 'P') continue;
+            for (char promotion : "QRBN".toCharArray()) {
+                addDependency(removed + promotion, other, isSwapped, dependencies);
+            }
+        }
+    }
+
+    private static void addDependency(String side, String other, boolean isSwapped, Set<String> dependencies) {
+        dependencies.add(canonicalName(isSwapped ? "K" + other + "vK" + side : "K" + side + "vK" + other));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPieceCount() {
+        return pieceCount;
+    }
+
+    /**
+     * Gets the piece code of a slot. Slot 0 is the white king and slot 1 the black king, then white's
+     * pieces and black's pieces in name order.
+     * @param slot from 0 to getPieceCount() - 1
+     * @return piece code
+     */
+    public int getCode(int slot) {
+        return codes[slot];
+    }
+
+    /**
+     * Gets the number of indices, every arrangement of the pieces with the white king in its symmetry region
+     * and either side to play.
+     * @return size of table in positions
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public long getMaterialKey() {
+        return materialKey;
+    }
+
+    /**
+     * Gets a key made of the count of every piece other than the kings, 4 bits each.
+     * @param position to count pieces of
+     * @return material key
+     */
+    public static long materialKey(Position position) {
+        long key = 0L;
+        for (int code = 0; code < Position.PIECE_CODE_COUNT; code++) {
+            if (Position.kindOf(code) == Position.KING) continue;
+            key += (long) Long.bitCount(position.getPieceBoard(code)) << keyShift(code);
+        }
+        return key;
+    }
+
+    /**
+     * Gets the material key of the same material with colors swapped.
+     * @param key material key
+     * @return key with white and black counts swapped
+     */
+    public static long flipMaterialKey(long key) {
+        long whiteMask = (1L << BLACK_KEY_SHIFT) - 1;
+        return (key >>> BLACK_KEY_SHIFT) | ((key & whiteMask) << BLACK_KEY_SHIFT);
+    }
+
+    private static int keyShift(int code) {
+        return Position.isWhiteCode(code) ? Position.kindOf(code) * CODE_BITS
+                : BLACK_KEY_SHIFT + Position.kindOf(code) * CODE_BITS;
+    }
+
+    /**
+     * Indexes a position with this table's material.
+     * @param position to index, material must match this table, or its color swapped copy if isFlipped
+     * @param isFlipped whether to index the position with colors swapped and the board turned over
+     * @param squares scratch buffer, at least MAX_PIECES long
+     * @return index of position
+     */
+    public int index(Position position, boolean isFlipped, int[] squares) {
+        for (int slot = 0; slot < pieceCount; ) {
+            int code = codes[slot];
+            long pieces = position.getPieceBoard(isFlipped ? flipColor(code) : code);
+            for (; slot < pieceCount && codes[slot] == code; slot++) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                squares[slot] = isFlipped ? square ^ 56 : square;
+            }
+        }
+        return index(squares, position.isWhiteToPlay() != isFlipped);
+    }
+
+    /**
+     * Indexes the squares of every slot. The squares are turned into the canonical symmetry in place.
+     * @param squares square of every slot
+     * @param isWhiteToPlay side to play
+     * @return index of position
+     */
+    public int index(int[] squares, boolean isWhiteToPlay) {
+        int king = squares[0];
+        int transform = 0;
+        if (Position.fileOf(king) > 3) transform |= MIRROR;
+        if (!hasPawns) {
+            if (Position.rankOf(king) > 3) transform |= FLIP;
+            int moved = transform(king, transform);
+            if (Position.rankOf(moved) > Position.fileOf(moved)) transform |= TRANSPOSE;
+        }
+        for (int slot = 0; slot < pieceCount; slot++) {
+            squares[slot] = transform(squares[slot], transform);
+        }
+        sortInterchangeable(squares);
+        int index = rawIndex(squares);
+        // A king on the diagonal is left in place by transposing, so of the two mirror images the one with
+        // the lower index is taken, keeping every position at exactly one index.
+        if (!hasPawns && Position.rankOf(squares[0]) == Position.fileOf(squares[0])) {
+            transposeAll(squares);
+            int transposed = rawIndex(squares);
+            if (transposed < index) {
+                index = transposed;
+            } else {
+                transposeAll(squares);
+            }
+        }
+        return (index << 1) | (isWhiteToPlay ? 0 : 1);
+    }
+
+    private void transposeAll(int[] squares) {
+        for (int slot = 0; slot < pieceCount; slot++) {
+            squares[slot] = transform(squares[slot], TRANSPOSE);
+        }
+        sortInterchangeable(squares);
+    }
+
+    /**
+     * Keeps pieces of the same kind, which are interchangeable, in square order.
+     */
+    private void sortInterchangeable(int[] squares) {
+        for (int slot = 3; slot < pieceCount; slot++) {
+            for (int j = slot; j > 2 && codes[j] == codes[j - 1] && squares[j] < squares[j - 1]; j--) {
+                int swap = squares[j];
+                squares[j] = squares[j - 1];
+                squares[j - 1] = swap;
+            }
+        }
+    }
+
+    private int rawIndex(int[] squares) {
+        int index = kingIndex[squares[0]];
+        for (int slot = 1; slot < pieceCount; slot++) {
+            index = (index << 6) | squares[slot];
+        }
+        return index;
+    }
+
+    private static int transform(int square, int transform) {
+        if ((transform & MIRROR) != 0) square ^= 7;
+        if ((transform & FLIP) != 0) square ^= 56;
+        if ((transform & TRANSPOSE) != 0) square = Position.square(Position.fileOf(square), Position.rankOf(square));
+        return square;
+    }
+
+    /**
+     * Reads the squares of every slot back out of an index.
+     * @param index of position
+     * @param squares overwritten with the square of every slot
+     * @return true if white is to play
+     */
+    public boolean decode(int index, int[] squares) {
+        int rest = index >>> 1;
+        for (int slot = pieceCount - 1; slot > 0; slot--) {
+            squares[slot] = rest & 63;
+            rest >>>= 6;
+        }
+        squares[0] = kingSquares[rest];
+        return (index & 1) == 0;
+    }
+
+    /**
+     * Sets up a position from the squares of every slot, with no castling and no en passant.
+     * @param squares square of every slot
+     * @param isWhiteToPlay side to play
+     * @param position overwritten with the pieces
+     */
+    public void setUp(int[] squares, boolean isWhiteToPlay, Position position) {
+        position.clear();
+        for (int slot = 0; slot < pieceCount; slot++) {
+            position.setPiece(squares[slot], codes[slot]);
+        }
+        position.setWhiteToPlay(isWhiteToPlay);
+    }
+
+    private static int flipColor(int code) {
+        return Position.pieceCode(Position.kindOf(code), !Position.isWhiteCode(code));
+    }
+
+    /**
+     * Maps this table's distance and result files for probing.
+     * @param directory holding the files
+     * @throws IOException if the files cannot be read
+     */
+    public void open(Path directory) throws IOException {
+        distances = map(directory.resolve(name + DISTANCE_SUFFIX));
+        results = map(directory.resolve(name + RESULT_SUFFIX));
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Gets the stored distance byte of an index from the mapped distance file.
+     * @param index of position
+     * @return 0 for a draw, 255 for unused, otherwise distance to mate in plies plus one
+     */
+    int getStoredDistance(int index) {
+        return distances.get(index) & 0xFF;
+    }
+
+    /**
+     * Gets the result of an index from the mapped result file, which is a quarter of the size of the distances.
+     * @param index of position
+     * @return WIN, DRAW or LOSS for the side to play
+     */
+    public int getResult(int index) {
+        return (results.get(index >>> 2) >>> ((index & 3) << 1)) & 3;
+    }
+
+    /**
+     * Gets the score of an index the way the search scores mates.
+     * @param index of position
+     * @return Search.MATE less the distance for a win, its negative for a loss, 0 for a draw
+     */
+    public int getScore(int index) {
+        int stored = getStoredDistance(index);
+        if (stored == UNDECIDED || stored == UNUSED) return 0;
+        int distance = stored - 1;
+        return (distance & 1) != 0 ? Search.MATE - distance : distance - Search.MATE;
+    }
+
+    /**
+     * Gets the packed result a stored distance byte stands for.
+     * @param stored distance byte
+     * @return WIN, DRAW or LOSS for the side to play
+     */
+    static int resultOf(int stored) {
+        if (stored == UNDECIDED || stored == UNUSED) return DRAW;
+        return ((stored - 1) & 1) != 0 ? WIN : LOSS;
+    }
+}
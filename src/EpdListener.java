@@ -0,0 +1,11 @@
+@FunctionalInterface
+public interface EpdListener {
+    /**
+     * Used by the EPD reader to hand over each record as it is read. The position and operations are reused
+     * for the next record, so copy them to keep them.
+     * @param position parsed from the record
+     * @param operations text after the position fields, such as "bm e4; id \"test 1\";", possibly empty
+     * @param lineNumber of the record in the file, starting at 1
+     */
+    public void onPosition(Position position, CharSequence operations, long lineNumber);
+}
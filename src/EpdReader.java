@@ -0,0 +1,76 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class EpdReader {
+
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final int INITIAL_LINE_CAPACITY = 256;
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final Position position = new Position();
+    private char[] line = new char[INITIAL_LINE_CAPACITY];
+    private CharBuffer lineView = CharBuffer.wrap(line);
+
+    /**
+     * Reads an EPD (or FEN per line) file record by record, in memory bounded by the longest line no matter
+     * how big the file is. Blank lines and lines starting with '#' are skipped. Nothing is allocated per record.
+     * @param path of file to read
+     * @param listener told about every record
+     * @return number of records read
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a record is not a legal position, naming its line
+     */
+    public long read(Path path, EpdListener listener) throws IOException {
+        long lineNumber = 0;
+        long recordCount = 0;
+        int length = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            readBuffer.clear();
+            while (channel.read(readBuffer) != -1) {
+                readBuffer.flip();
+                while (readBuffer.hasRemaining()) {
+                    byte b = readBuffer.get();
+                    if (b == '\n') {
+                        if (handleLine(length, ++lineNumber, listener)) recordCount++;
+                        length = 0;
+                    } else {
+                        if (length == line.length) growLine();
+                        // EPD is ASCII, so each byte is one character.
+                        line[length++] = (char) (b & 0xFF);
+                    }
+                }
+                readBuffer.clear();
+            }
+        }
+        if (length > 0 && handleLine(length, ++lineNumber, listener)) recordCount++;
+        return recordCount;
+    }
+
+    private boolean handleLine(int length, long lineNumber, EpdListener listener) {
+        if (length > 0 && line[length - 1] == '\r') length--;
+        int start = 0;
+        while (start < length && line[start] == ' ') start++;
+        if (start == length || line[start] == '#') return false;
+        lineView.clear();
+        int operationsStart;
+        try {
+            operationsStart = Fen.parse(lineView, start, length, position);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Illegal EPD record on line " + lineNumber + ".", e);
+        }
+        lineView.limit(length).position(operationsStart);
+        listener.onPosition(position, lineView, lineNumber);
+        return true;
+    }
+
+    private void growLine() {
+        char[] grown = new char[line.length * 2];
+        System.arraycopy(line, 0, grown, 0, line.length);
+        line = grown;
+        lineView = CharBuffer.wrap(line);
+    }
+}
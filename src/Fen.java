@@ -0,0 +1,191 @@
+public final class Fen {
+
+    private Fen() {
+    }
+
+    /**
+     * Parses a FEN or EPD record into a position without allocating. The half move and full move clocks are
+     * optional, as EPD leaves them out, and default to 0 and 1. Castling rights whose king or rook is not on its
+     * home square are dropped, as the pieces could not castle anyway.
+     * @param text holding the record
+     * @param start index of the first character of the record
+     * @param end index after the last character that may be read
+     * @param position overwritten with the parsed position
+     * @return index after the last field read, where EPD operations start
+     * @throws IllegalArgumentException if the record is malformed, or its en passant square is not behind a pawn
+     * that just moved two squares
+     */
+    public static int parse(CharSequence text, int start, int end, Position position) {
+        position.clear();
+        int i = skipSpaces(text, start, end);
+        int rank = 0;
+        int file = 0;
+        for (; i < end && text.charAt(i) != ' '; i++) {
+            char c = text.charAt(i);
+            if (c == '/') {
+                rank++;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                int code = Position.codeFromFEN(c);
+                if (code == Position.EMPTY || rank >= Position.BOARD_SIZE || file >= Position.BOARD_SIZE) {
+                    throw illegal(text, start, end);
+                }
+                position.setPiece(Position.square(rank, file), code);
+                file++;
+            }
+        }
+
+        i = skipSpaces(text, i, end);
+        if (i >= end || (text.charAt(i) != 'w' && text.charAt(i) != 'b')) throw illegal(text, start, end);
+        position.setWhiteToPlay(text.charAt(i++) == 'w');
+
+        i = skipSpaces(text, i, end);
+        int castlingRights = 0;
+        for (; i < end && text.charAt(i) != ' '; i++) {
+            switch (text.charAt(i)) {
+                case 'K' -> castlingRights |= Position.WHITE_KING_SIDE;
+                case 'Q' -> castlingRights |= Position.WHITE_QUEEN_SIDE;
+                case 'k' -> castlingRights |= Position.BLACK_KING_SIDE;
+                case 'q' -> castlingRights |= Position.BLACK_QUEEN_SIDE;
+                case '-' -> { }
+                default -> throw illegal(text, start, end);
+            }
+        }
+        position.setCastlingRights(castlingRights & getPossibleCastling(position));
+
+        i = skipSpaces(text, i, end);
+        if (i >= end) throw illegal(text, start, end);
+        if (text.charAt(i) == '-') {
+            position.setEnPassantSquare(Position.NO_SQUARE);
+            i++;
+        } else {
+            if (i + 1 >= end) throw illegal(text, start, end);
+            int enPassantFile = text.charAt(i) - 'a';
+            int enPassantRank = '8' - text.charAt(i + 1);
+            // The pawn that just moved stands one rank past the square it skipped, seen from its own side.
+            boolean isWhiteToPlay = position.isWhiteToPlay();
+            int skippedRank = isWhiteToPlay ? 2 : Position.BOARD_SIZE - 3;
+            if (enPassantFile < 0 || enPassantFile >= Position.BOARD_SIZE || enPassantRank != skippedRank
+                    || position.getPiece(Position.square(enPassantRank + (isWhiteToPlay ? 1 : -1), enPassantFile))
+                            != Position.pieceCode(Position.PAWN, !isWhiteToPlay)) {
+                throw illegal(text, start, end);
+            }
+            position.setEnPassantSquare(Position.square(enPassantRank, enPassantFile));
+            i += 2;
+        }
+
+        int clockStart = skipSpaces(text, i, end);
+        if (clockStart < end && isDigit(text.charAt(clockStart))) {
+            i = clockStart;
+            int halfMoves = 0;
+            for (; i < end && isDigit(text.charAt(i)); i++) {
+                halfMoves = halfMoves * 10 + text.charAt(i) - '0';
+            }
+            position.setHalfMoves(halfMoves);
+            i = skipSpaces(text, i, end);
+            if (i < end && isDigit(text.charAt(i))) {
+                int fullMoves = 0;
+                for (; i < end && isDigit(text.charAt(i)); i++) {
+                    fullMoves = fullMoves * 10 + text.charAt(i) - '0';
+                }
+                position.setFullMoves(fullMoves);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Writes the FEN of a position, all six fields, to a builder owned by the caller.
+     * @param position to write
+     * @param out builder to append to
+     * @return out, for chaining
+     */
+    public static StringBuilder append(Position position, StringBuilder out) {
+        appendEPD(position, out);
+        return out.append(' ').append(position.getHalfMoves()).append(' ').append(position.getFullMoves());
+    }
+
+    /**
+     * Writes the four position fields of EPD, which are FEN without the clocks.
+     * @param position to write
+     * @param out builder to append to
+     * @return out, for chaining
+     */
+    public static StringBuilder appendEPD(Position position, StringBuilder out) {
+        for (int rank = 0; rank < Position.BOARD_SIZE; rank++) {
+            if (rank > 0) out.append('/');
+            int emptyCount = 0;
+            for (int file = 0; file < Position.BOARD_SIZE; file++) {
+                int code = position.getPiece(Position.square(rank, file));
+                if (code == Position.EMPTY) {
+                    emptyCount++;
+                    continue;
+                }
+                if (emptyCount > 0) out.append((char) ('0' + emptyCount));
+                emptyCount = 0;
+                out.append(Position.fenFromCode(code));
+            }
+            if (emptyCount > 0) out.append((char) ('0' + emptyCount));
+        }
+        out.append(position.isWhiteToPlay() ? " w " : " b ");
+        int castlingRights = position.getCastlingRights();
+        if (castlingRights == 0) out.append('-');
+        if ((castlingRights & Position.WHITE_KING_SIDE) != 0) out.append('K');
+        if ((castlingRights & Position.WHITE_QUEEN_SIDE) != 0) out.append('Q');
+        if ((castlingRights & Position.BLACK_KING_SIDE) != 0) out.append('k');
+        if ((castlingRights & Position.BLACK_QUEEN_SIDE) != 0) out.append('q');
+        out.append(' ');
+        int enPassantSquare = position.getEnPassantSquare();
+        if (enPassantSquare == Position.NO_SQUARE) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + Position.fileOf(enPassantSquare)))
+                    .append((char) ('8' - Position.rankOf(enPassantSquare)));
+        }
+        return out;
+    }
+
+    /**
+     * Gets the FEN of a position.
+     * @param position to write
+     * @return FEN String
+     */
+    public static String toFEN(Position position) {
+        return append(position, new StringBuilder(90)).toString();
+    }
+
+    /**
+     * Gets the castling rights the pieces allow, those whose king and rook are both on their home squares.
+     */
+    private static int getPossibleCastling(Position position) {
+        int rights = 0;
+        for (int side = 0; side < 2; side++) {
+            boolean isWhite = side == 0;
+            int rank = isWhite ? Position.BOARD_SIZE - 1 : 0;
+            if (position.getPiece(Position.square(rank, 4)) != Position.pieceCode(Position.KING, isWhite)) continue;
+            int rook = Position.pieceCode(Position.ROOK, isWhite);
+            if (position.getPiece(Position.square(rank, Position.BOARD_SIZE - 1)) == rook) {
+                rights |= isWhite ? Position.WHITE_KING_SIDE : Position.BLACK_KING_SIDE;
+            }
+            if (position.getPiece(Position.square(rank, 0)) == rook) {
+                rights |= isWhite ? Position.WHITE_QUEEN_SIDE : Position.BLACK_QUEEN_SIDE;
+            }
+        }
+        return rights;
+    }
+
+    private static int skipSpaces(CharSequence text, int i, int end) {
+        while (i < end && text.charAt(i) == ' ') i++;
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static IllegalArgumentException illegal(CharSequence text, int start, int end) {
+        return new IllegalArgumentException("Illegal FEN String given: " + text.subSequence(start, end));
+    }
+}
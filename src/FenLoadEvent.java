@@ -0,0 +1,19 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("chess.FenLoad")
+@Label("FEN Load")
+@Category("Chess")
+@Description("Setting a game's position from a FEN String")
+public class FenLoadEvent extends Event {
+
+    @Label("FEN")
+    private String fen;
+
+    public void setFEN(String fen) {
+        this.fen = fen;
+    }
+}
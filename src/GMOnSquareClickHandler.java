@@ -0,0 +1,9 @@
+@FunctionalInterface
+public interface GMOnSquareClickHandler {
+    /**
+     * Used by a canvas board to tell its owner which square was clicked.
+     * @param rank of square clicked, 0 is the eighth rank whichever way the board is turned
+     * @param file of square clicked, 0 is the a-file whichever way the board is turned
+     */
+    public void handleClick(int rank, int file);
+}
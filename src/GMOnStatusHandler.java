@@ -0,0 +1,9 @@
+@FunctionalInterface
+public interface GMOnStatusHandler {
+    /**
+     * Used by the game manager to tell the display about check, checkmate and stalemate.
+     * @param status of the game
+     * @param isWhiteToPlay color of the side to play, which is the side in check or mated
+     */
+    public void handleStatus(GameStatus status, boolean isWhiteToPlay);
+}
@@ -1,25 +1,42 @@
-import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class GameManager {
 
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
     Board board;
-    private boolean isWhiteToPlay;
-    private int whiteMaterialScore;
-    private int blackMaterialScore;
-    private String castle;
-    private String enPassant;
-    private int halfMoves;
-    private int fullMoves;
+    // Boards are added on the JavaFX thread while moves may be played on another, so they are walked on a copy.
+    private final CopyOnWriteArrayList<CanvasBoard> canvasBoards = new CopyOnWriteArrayList<>();
+    private final Position position;
+    private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
+    private final int[] statusBuffer = new int[MoveGenerator.MAX_MOVES];
+    private int selectedMoveCount;
+    private int selectedSquare = Position.NO_SQUARE;
+    private long selectedHighlights;
+    private GameStatus gameStatus = GameStatus.PLAYING;
+    private GMOnStatusHandler statusHandler;
+    private Search search;
+    private OpeningBook openingBook;
+    private Tablebase tablebase;
+    private final int[] bookMoves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] bookWeights = new int[MoveGenerator.MAX_MOVES];
 
     /**
      * Constructor for new GameManager instantiates a new board and sets it do the default chess starting position.
      */
 
     public GameManager() {
-        board = new Board(this::handleClick);
-        setFENState("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
-        whiteMaterialScore = 0;
-        blackMaterialScore = 0;
+        this(true);
+    }
+
+    /**
+     * Constructor for new GameManager set to the default chess starting position.
+     * @param hasBoard whether to create a JavaFX board for this game, false to run headless on the position alone
+     */
+    public GameManager(boolean hasBoard) {
+        position = new Position();
+        if (hasBoard) board = new Board(position, this::handleClick);
+        setFENState(START_FEN);
     }
 
     /**
@@ -27,300 +44,185 @@ public class GameManager {
      * @param fenString A board state represented as a FEN String
      */
     public final void setFENState(String fenString) {
-        int i = 0;
-        int j = 0;
-        String[] fenFields = fenString.split(" ");
-        if (fenFields.length != 6)
-            throw new IllegalArgumentException("Illegal FEN String given.");
-        char[] fenArray = fenFields[0].toCharArray();
-        for (char c : fenArray) {
-            switch (c) {
-                case 'r' -> {
-                    board.setPieceAtPosition(i, j, new Rook(false));
-                    j++;
-                }
-                case 'n' -> {
-                    board.setPieceAtPosition(i, j, new Knight(false));
-                    j++;
-                }
-                case 'b' -> {
-                    board.setPieceAtPosition(i, j, new Bishop(false));
-                    j++;
-                }
-                case 'q' -> {
-                    board.setPieceAtPosition(i, j, new Queen(false));
-                    j++;
-                }
-                case 'k' -> {
-                    board.setPieceAtPosition(i, j, new King(false));
-                    j++;
-                }
-                case 'p' -> {
-                    board.setPieceAtPosition(i, j, new Pawn(false));
-                    j++;
-                }
-                case 'R' -> {
-                    board.setPieceAtPosition(i, j, new Rook(true));
-                    j++;
-                }
-                case 'N' -> {
-                    board.setPieceAtPosition(i, j, new Knight(true));
-                    j++;
-                }
-                case 'B' -> {
-                    board.setPieceAtPosition(i, j, new Bishop(true));
-                    j++;
-                }
-                case 'Q' -> {
-                    board.setPieceAtPosition(i, j, new Queen(true));
-                    j++;
-                }
-                case 'K' -> {
-                    board.setPieceAtPosition(i, j, new King(true));
-                    j++;
-                }
-                case 'P' -> {
-                    board.setPieceAtPosition(i, j, new Pawn(true));
-                    j++;
-                }
-                case '/' -> {
-                    i++;
-                    j = 0;
-                }
-                default -> {
-                    j += (c - '0');
-                }
-            }
+        FenLoadEvent event = new FenLoadEvent();
+        event.begin();
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int end = Fen.parse(fenString, 0, fenString.length(), position);
+        if (!fenString.substring(end).isBlank()) throw new IllegalArgumentException("Illegal FEN String given.");
+        if (board != null) board.loadPosition();
+        clearSquareSelection();
+        refreshCanvasBoards();
+        updateGameStatus();
+        if (Metrics.ENABLED) Metrics.record(Metrics.Timer.FEN_LOAD, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.setFEN(fenString);
+            event.commit();
         }
-        isWhiteToPlay = fenFields[1].equals("w");
-        castle = fenFields[2];
-        enPassant = fenFields[3];
-        halfMoves = Integer.parseInt(fenFields[4]);
-        fullMoves = Integer.parseInt(fenFields[5]);
+    }
+
+    /**
+     * Gets current state of board (position and other game states) as a FEN String.
+     * @return A board state represented as a FEN String
+     */
+    public String getFENState() {
+        return Fen.toFEN(position);
     }
 
     /**
      * Draws board on the console using UNICODE.
      */
     public void consoleDraw() {
-        board.consoleDraw(isWhiteToPlay);
+        board.consoleDraw(position.isWhiteToPlay());
     }
 
     /**
      * Gets the board of this game manager.
-     * @return the board
+     * @return the board, or null if this game is headless
      */
     public Board getBoard() {
         return board;
     }
 
     /**
-     * Validates board suggested moves based on game rules.
-     * @param piece selected to move
-     * @param rank of piece
-     * @param file of piece
-     * @param move to validate
-     * @return VALID if valid, INVALID if not
+     * Creates a lightweight view of this game drawn on a single canvas, kept up to date after every move.
+     * Works for headless games too, for watching many games at once.
+     * @param sizePixels width and height of the view
+     * @return the view
      */
-    private MoveStatus validate(Piece piece, int rank, int file, Move move) {
-        if (piece.isWhite() != isWhiteToPlay) return MoveStatus.INVALID;
-        switch (piece.getName()) {
-            case "pawn": return validatePawn(piece.isWhite(), rank, file, move);
-            case "king": return validateKing(piece.isWhite(), rank, file, move);
-            default: return MoveStatus.VALID;
-        }
+    public CanvasBoard createCanvasBoard(double sizePixels) {
+        return createCanvasBoard(sizePixels, false);
     }
 
-    private MoveStatus validatePawn(boolean isWhite, int rank, int file, Move move) {
-        if (move.file == file) {
-            return MoveStatus.VALID;
-        }
-        if ((isWhite ? rank == 3 : rank == board.BOARD_SIZE - 4) && indToAlg(move.rank, move.file).equals(enPassant)) {
-            return MoveStatus.VALID;
-        }
-        Piece targetPiece = board.getPieceAtPosition(move.rank, move.file);
-        if (targetPiece != null && targetPiece.isWhite() != isWhite) {
-            return MoveStatus.VALID;
+    /**
+     * Creates a view of this game drawn on a single canvas, kept up to date after every move. Create it on the
+     * JavaFX thread; moves may still be played on any thread, as views are redrawn on the JavaFX thread.
+     * Works for headless games too, for watching many games at once.
+     * @param sizePixels width and height of the view
+     * @param isPlayable true to select and move pieces by clicking, with the side to play at the bottom like the
+     * tile board, false for a view only
+     * @return the view
+     */
+    public CanvasBoard createCanvasBoard(double sizePixels, boolean isPlayable) {
+        CanvasBoard canvasBoard = new CanvasBoard(sizePixels);
+        if (isPlayable) {
+            canvasBoard.setFollowingSideToPlay(true);
+            canvasBoard.setOnSquareClicked(this::handleSquareClick);
         }
-        return MoveStatus.INVALID;
+        canvasBoards.add(canvasBoard);
+        canvasBoard.showPosition(position, selectedHighlights);
+        return canvasBoard;
     }
 
     /**
-     * Validates all moves (including castling) as an option for a potential king move.
-     * @param isWhite kings color
-     * @param rank of king
-     * @param file of king
-     * @param move potential move to consider
-     * @return Move status based on the move to consider
+     * Gets the position of this game manager, which is the source of truth the board displays.
+     * @return the position
      */
-    private MoveStatus validateKing(boolean isWhite, int rank, int file, Move move) {
-        if (Math.abs(rank - move.rank) <= 1 && Math.abs(file - move.file) <= 1) {
-            return MoveStatus.VALID;
-        }
-        if (move.file > file) {
-            if ((isWhite && !castle.contains("K")) || (!isWhite && !castle.contains("k"))) {
-                return MoveStatus.INVALID;
-            }
-            for (int i = file + 1; i < board.BOARD_SIZE - 1; i++) {
-                if (board.getPieceAtPosition(rank, i) != null) return MoveStatus.INVALID;
-            }
-        } else {
-            if ((isWhite && !castle.contains("Q")) || (!isWhite && !castle.contains("q"))) {
-                return MoveStatus.INVALID;
-            }
-            for (int i = file - 1; i >= 1; i--) {
-                if (board.getPieceAtPosition(rank, i) != null) return MoveStatus.INVALID;
-            }
-        }
-            return MoveStatus.VALID;
+    public Position getPosition() {
+        return position;
     }
 
     /**
-     * Handles special cases like en passant, castling, and pawn promoting.
-     * @param rank of currently selected piece
-     * @param file of currently selected piece
-     * @param move where the piece is going
-     * @return true if given move is a special case, false if not
+     * Gets the state of the game in the current position.
+     * @return PLAYING, CHECK, CHECKMATE, STALEMATE or one of the draws
      */
-    private boolean handleSpecialCase(int rank, int file, Move move) {
-        Piece piece = board.getPieceAtPosition(rank, file);
-        switch (piece.getName()) {
-            case "pawn": {
-                if (enPassant.equals("-")) return false;
-                Move enPassantAsMove = getEnPassantAsMove();
-                if (enPassantAsMove.equals(move)) {
-                    handleEnPassant(rank, file);
-                    return true;
-                }
-                break;
-            }
-            case "king": {
-                if (Math.abs(move.file - file) == 2) {
-                    handleCastle(rank, file, move.file - file == 2);
-                    return true;
-                }
-                break;
-            }
-        }
-        return false;
+    public GameStatus getGameStatus() {
+        return gameStatus;
     }
 
     /**
-     * Moves pawn in an en passant pattern.
-     * @param rank of pawn moving
-     * @param file of pawn moving
+     * Gets the material a color has left on the board, kept up to date by the position on every move.
+     * @param isWhite color to count
+     * @return material score in pawns
      */
-    private void handleEnPassant(int rank, int file) {
-        Move move = getEnPassantAsMove();
-        Piece pawn = board.getPieceAtPosition(rank, file);
-        if (rank == 3) {
-            board.setPieceAtPosition(3, move.file, null);
-        } else {
-            board.setPieceAtPosition(board.BOARD_SIZE - 4, move.file, null);
-        }
-        updateMaterialScore(true, pawn.getMaterialScore());
-        executeMove(board.getTileAt(move.rank, move.file), board.getTileAt(rank, file));
+    public int getMaterialScore(boolean isWhite) {
+        return position.getMaterial(isWhite);
     }
 
     /**
-     * Moves king and rook in a castling pattern.
-     * @param rank of king
-     * @param file of king
-     * @param isKingSide is castling on king or queen side
+     * Sets a handler told whenever the state of the game is worked out again, after every move, take back and FEN.
+     * @param statusHandler to tell, or null for none
      */
-    private void handleCastle(int rank, int file, boolean isKingSide) {
-        int boardSize = board.BOARD_SIZE;
-        int rookFile;
-        int newKingFile;
-        int newRookFile;
-        if (isKingSide) {
-            rookFile = boardSize - 1;
-            newKingFile = file + 2;
-            newRookFile = file + 1;
-        } else {
-            rookFile = 0;
-            newKingFile = file - 2;
-            newRookFile = file - 1;
-        }
-        Piece rook = board.getPieceAtPosition(rank, rookFile);
-        board.setPieceAtPosition(rank, newRookFile, rook);
-        board.setPieceAtPosition(rank, rookFile, null);
-        executeMove(board.getTileAt(rank, newKingFile), board.getTileAt(rank, file));
+    public void setStatusHandler(GMOnStatusHandler statusHandler) {
+        this.statusHandler = statusHandler;
     }
 
     /**
-     * Alters game states en passant, move count, or castling possibility upon moving a piece.
-     * @param rank of piece
-     * @param file of piece
-     * @param move where the piece is going
-     * @param isCapture whether this move is a capture or not
+     * Plays a move on the position and updates the board to match. Castling, en passant and promotion
+     * are all handled by the position.
+     * @param move packed move, pseudo-legal for the side to play
+     * @return true if the move was played, false if the game is already over
      */
-    private void handleGameStateChange(int rank, int file, Move move, boolean isCapture) {
-        Piece piece = board.getPieceAtPosition(move.rank, move.file);
-        enPassant = "-";
-        switch (piece.getName()) {
-            case "pawn": {
-                halfMoves = -1;
-                if (Math.abs(rank - move.rank) == 2) enPassant = indToAlg(rank == 1 ? 2 : board.BOARD_SIZE - 3, file);
-                break;
-            }
-            case "king": {
-                if (piece.isWhite()) {
-                    editCastleState("KQ");
-                } else {
-                    editCastleState("kq");
-                }
-            }
-            case "rook": {
-                if (move.file == 3) {
-                    if (piece.isWhite()) {
-                        editCastleState("Q");
-                    } else {
-                        editCastleState("q");
-                    }
-                }
-                else {
-                    if (piece.isWhite()) {
-                        editCastleState("K");
-                    } else {
-                        editCastleState("k");
-                    }
-                }
-            }
+    public boolean playMove(int move) {
+        if (gameStatus.isGameOver()) return false;
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        position.makeMove(move);
+        if (board != null) refreshBoard();
+        clearSquareSelection();
+        refreshCanvasBoards();
+        updateGameStatus();
+        if (Metrics.ENABLED) Metrics.record(Metrics.Timer.MOVE_APPLICATION, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.setMove(Moves.toUCI(move));
+            event.setGameStatus(gameStatus.toString());
+            event.commit();
         }
-        if (isCapture) halfMoves = -1;
-        halfMoves++;
-        if (!piece.isWhite()) fullMoves++;
-        isWhiteToPlay = !isWhiteToPlay;
+        return true;
     }
 
-    private void editCastleState(String castleOptionsToRemove) {
-        for (int i = 0; i < castleOptionsToRemove.length(); i++) {
-            char charToRemove = castleOptionsToRemove.charAt(i);
-            castle = castle.replace(Character.toString(charToRemove), "");
-        }
+    /**
+     * Takes back the last move played, restoring castling rights, en passant and clocks as they were.
+     * @return true if a move was taken back, false if there was none
+     */
+    public boolean undoMove() {
+        if (position.getLastMove() == Moves.NONE) return false;
+        position.unmakeMove();
+        updateGameStatus();
+        if (board != null) refreshBoard();
+        clearSquareSelection();
+        refreshCanvasBoards();
+        return true;
+    }
+
+    /**
+     * Sets the opening book the engine plays from while the position is in it.
+     * @param openingBook to play from, or null to always search
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
     }
 
     /**
-     * Converts array indices to algorithmic (chess coordinates) notation.
-     * @param rank of tile
-     * @param file of tile
-     * @return string in algorithmic notation
+     * Sets the endgame tables the engine plays from once few enough pieces are left.
+     * @param tablebase to play from, or null to always search
      */
-    private String indToAlg(int rank, int file) {
-        char num = (char) ('8' - rank);
-        char letter = (char) (file + 'a');
-        return new String(new char[] {letter, num});
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
     }
 
     /**
-     * Gets enPassant String and converts it to a move object with correct rank and file.
-     * @return enPassant as a move
+     * Lets the engine pick and play a move for the side to play, from the opening book or endgame tables if
+     * the position is in them.
+     * @param timeLimitMillis time the engine may think, in milliseconds
+     * @return the move played, or Moves.NONE if the game is over
      */
-    private Move getEnPassantAsMove() {
-        int rank = '8' - enPassant.charAt(1);
-        int file = enPassant.charAt(0) - 'a';
-        return new Move(rank, file);
+    public int playEngineMove(long timeLimitMillis) {
+        if (gameStatus.isGameOver()) return Moves.NONE;
+        int move = openingBook == null ? Moves.NONE : openingBook.pickMove(position, bookMoves, bookWeights);
+        if (move == Moves.NONE && tablebase != null
+                && Long.bitCount(position.getOccupancy()) <= tablebase.getMaxPieces()) {
+            move = tablebase.getBestMove(position, bookMoves);
+        }
+        if (move == Moves.NONE) {
+            if (search == null) search = new Search();
+            search.prepare();
+            move = search.search(position, Search.MAX_PLY, timeLimitMillis, 0).getBestMove();
+        }
+        if (move != Moves.NONE) playMove(move);
+        return move;
     }
 
     /**
@@ -333,26 +235,64 @@ public class GameManager {
         Piece clickedPiece = clickedTile.getPiece();
         Move selectedPosition = board.getSelectedPosition();
         Tile selectedTile = selectedPosition == null ? null : board.getTileAt(selectedPosition);
-        Piece selectedPiece = selectedTile == null ? null : selectedTile.getPiece();
-
-        if (clickedPiece != null) {
-            if (selectedPiece != null && board.highlightedTilesContains(clickedTile) && clickedPiece.isWhite() != selectedPiece.isWhite()) {
-                handleCaptureMove(clickedTile, selectedTile, selectedPiece, clickedPiece);
-                handleGameStateChange(selectedPosition.rank, selectedPosition.file, new Move(rank, file), true);
-            } else if (clickedTile == selectedTile) {
-                handleDeselectTile();
-            } else {
-                handleSelectTile(clickedTile, rank, file);
+
+        if (selectedTile != null && clickedTile != selectedTile && board.highlightedTilesContains(clickedTile)) {
+            playMove(getSelectedMove(Position.square(rank, file)));
+        } else if (clickedTile == selectedTile) {
+            handleDeselectTile();
+        } else if (clickedPiece != null) {
+            handleSelectTile(clickedTile, rank, file);
+        }
+    }
+
+    /**
+     * Handles a click on a canvas board: moves the selected piece to a highlighted square, deselects it when
+     * clicked again, or selects a piece of the side to play and highlights where it can go.
+     * @param rank of square clicked on
+     * @param file of square clicked on
+     */
+    private void handleSquareClick(int rank, int file) {
+        int square = Position.square(rank, file);
+        if (selectedSquare != Position.NO_SQUARE && square != selectedSquare) {
+            int move = getSelectedMove(square);
+            if (move != Moves.NONE) {
+                playMove(move);
+                return;
+            }
+        }
+        boolean isSelected = square == selectedSquare;
+        clearSquareSelection();
+        int code = position.getPiece(square);
+        // Once the game is over there is nothing left to move.
+        if (!isSelected && !gameStatus.isGameOver() && code != Position.EMPTY
+                && Position.isWhiteCode(code) == position.isWhiteToPlay()) {
+            selectedMoveCount = MoveGenerator.generateLegalMovesFrom(position, square, moveBuffer);
+            selectedSquare = square;
+            selectedHighlights = 1L << square;
+            for (int i = 0; i < selectedMoveCount; i++) {
+                selectedHighlights |= 1L << Moves.to(moveBuffer[i]);
             }
-        } else if (board.highlightedTilesContains(clickedTile)) {
-            if (!handleSpecialCase(selectedPosition.rank, selectedPosition.file, new Move(rank, file))) handleMove(clickedTile, selectedTile);
-            handleGameStateChange(selectedPosition.rank, selectedPosition.file, new Move(rank, file), false);
         }
+        refreshCanvasBoards();
     }
 
-    private void handleCaptureMove(Tile clickedTile, Tile selectedTile, Piece selectedPiece, Piece clickedPiece) {
-        updateMaterialScore(selectedPiece.isWhite(), clickedPiece.getMaterialScore());
-        executeMove(clickedTile, selectedTile);
+    private void clearSquareSelection() {
+        selectedSquare = Position.NO_SQUARE;
+        selectedHighlights = 0;
+    }
+
+    /**
+     * Finds the move of the selected piece to a square among the highlighted moves. Pawns promote to a queen.
+     * @param square moving to
+     * @return packed move
+     */
+    private int getSelectedMove(int square) {
+        for (int i = 0; i < selectedMoveCount; i++) {
+            int move = moveBuffer[i];
+            int promotion = Moves.promotion(move);
+            if (Moves.to(move) == square && (promotion == 0 || promotion == Position.QUEEN)) return move;
+        }
+        return Moves.NONE;
     }
 
     private void handleDeselectTile() {
@@ -362,38 +302,50 @@ public class GameManager {
     }
 
     private void handleSelectTile(Tile clickedTile, int rank, int file) {
+        // Once the game is over there is nothing left to move.
+        if (gameStatus.isGameOver()) return;
         board.toggleHighlightedTiles();
         board.clearHighlightedTiles();
 
-        ArrayList<Move> moves = board.getBoardValidMoves(rank, file);
-        moves.removeIf((move) -> validate(clickedTile.getPiece(), rank, file, move) == MoveStatus.INVALID);
-
-        for (Move move : moves) {
-            board.addTileToHighlighted(board.getTileAt(move.rank, move.file));
+        selectedMoveCount = 0;
+        if (clickedTile.getPiece().isWhite() == position.isWhiteToPlay()) {
+            selectedMoveCount = board.getBoardValidMoves(rank, file, moveBuffer);
+            for (int i = 0; i < selectedMoveCount; i++) {
+                int move = moveBuffer[i];
+                // Promotions come as four moves to the same square, highlight it once.
+                int promotion = Moves.promotion(move);
+                if (promotion != 0 && promotion != Position.QUEEN) continue;
+                int to = Moves.to(move);
+                board.addTileToHighlighted(board.getTileAt(Position.rankOf(to), Position.fileOf(to)));
+            }
         }
         board.setSelectedPosition(new Move(rank, file));
         board.addTileToHighlighted(clickedTile);
         board.toggleHighlightedTiles();
     }
 
-    private void handleMove(Tile clickedTile, Tile selectedTile) {
-        executeMove(clickedTile, selectedTile);
-    }
-
-    private void executeMove(Tile clickedTile, Tile selectedTile) {
-        clickedTile.setPiece(selectedTile.getPiece());
-        selectedTile.setPiece(null);
+    /**
+     * Brings the board's tiles in line with the position after a move, and turns the board for the other side.
+     */
+    private void refreshBoard() {
+        board.loadPosition();
         board.toggleHighlightedTiles();
         board.clearHighlightedTiles();
         board.setSelectedPosition(null);
         board.rotateBoard();
     }
 
-    private void updateMaterialScore(boolean isWhite, int score) {
-        if (isWhite) {
-            whiteMaterialScore += score;
-        } else {
-            blackMaterialScore += score;
+    /**
+     * Shows the position on every canvas board. Safe from any thread, the boards draw on the JavaFX thread.
+     */
+    private void refreshCanvasBoards() {
+        for (CanvasBoard canvasBoard : canvasBoards) {
+            canvasBoard.showPosition(position, selectedHighlights);
         }
     }
+
+    private void updateGameStatus() {
+        gameStatus = MoveGenerator.getGameStatusWithDraws(position, statusBuffer);
+        if (statusHandler != null) statusHandler.handleStatus(gameStatus, position.isWhiteToPlay());
+    }
 }
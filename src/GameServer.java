@@ -0,0 +1,204 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+public class GameServer {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = newThreadPerTaskExecutor("game-server-connection");
+    private final ConcurrentHashMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextSessionId = new AtomicLong(1);
+    private final Thread acceptThread;
+    private volatile LongConsumer moveTimeListener;
+
+    /**
+     * Constructor for a server hosting many games at once over a line based protocol on the loopback address.
+     * Every connection is served by a thread of its own, a virtual thread where the JVM has them. Commands,
+     * each answered by one line starting with "ok" or "error":
+     * <pre>
+     * new [fen]            starts a game, replies with its id
+     * move &lt;id&gt; &lt;uci&gt;     plays a move, replies with the game status
+     * undo &lt;id&gt;            takes back a move
+     * fen &lt;id&gt;             replies with the position
+     * close &lt;id&gt;           ends a game
+     * quit                 closes the connection
+     * </pre>
+     * Any connection may play in any game, sessions only lock themselves.
+     * @param port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public GameServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        acceptThread = new Thread(this::acceptConnections, "game-server-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task when the JVM has them (Java 21 and later), and
+     * a cached pool of daemon threads otherwise. Looked up reflectively so the project still builds on Java 17.
+     * @param name of fallback threads
+     * @return executor running every task on a thread of its own
+     */
+    static ExecutorService newThreadPerTaskExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool((runnable) -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Sets a listener told how long every legal move took to apply, in nanoseconds, from finding its session
+     * to the new game status. It is called on connection threads, so it must be thread safe.
+     * @param moveTimeListener to tell, or null for none
+     */
+    public void setMoveTimeListener(LongConsumer moveTimeListener) {
+        this.moveTimeListener = moveTimeListener;
+    }
+
+    /**
+     * Stops accepting connections and closes the ones open.
+     */
+    public void shutdown() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Closing anyway.
+        }
+        connections.shutdownNow();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) System.err.println("Game server accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Answers the commands of one connection until it quits or closes. Replies are flushed only once no more
+     * commands are waiting, so a client sending several at once gets the replies in one write.
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                     StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                     StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String reply = handleCommand(line.trim());
+                if (reply == null) break;
+                out.write(reply);
+                out.write('\n');
+                if (!in.ready()) out.flush();
+            }
+        } catch (IOException e) {
+            // The client went away, its games stay open for other connections.
+        }
+    }
+
+    /**
+     * Handles one command line.
+     * @return reply line, or null to close the connection
+     */
+    private String handleCommand(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "new" -> {
+                long id = nextSessionId.getAndIncrement();
+                String fen = tokens.length > 1 ? line.substring(line.indexOf(' ') + 1) : GameManager.START_FEN;
+                try {
+                    sessions.put(id, new GameSession(id, fen));
+                } catch (IllegalArgumentException e) {
+                    return "error " + e.getMessage();
+                }
+                return "ok " + id;
+            }
+            case "move" -> {
+                if (tokens.length < 3) return "error usage: move <id> <uci>";
+                long start = System.nanoTime();
+                GameSession session = findSession(tokens[1]);
+                if (session == null) return "error unknown session";
+                GameStatus status = session.playMove(tokens[2]);
+                if (status == null) return session.isOver() ? "error game over" : "error illegal move";
+                LongConsumer listener = moveTimeListener;
+                if (listener != null) listener.accept(System.nanoTime() - start);
+                return "ok " + status;
+            }
+            case "undo" -> {
+                GameSession session = tokens.length > 1 ? findSession(tokens[1]) : null;
+                if (session == null) return "error unknown session";
+                return session.undoMove() ? "ok" : "error no move to undo";
+            }
+            case "fen" -> {
+                GameSession session = tokens.length > 1 ? findSession(tokens[1]) : null;
+                if (session == null) return "error unknown session";
+                return "ok " + session.getFENState();
+            }
+            case "close" -> {
+                GameSession session = tokens.length > 1 ? findSession(tokens[1]) : null;
+                if (session == null) return "error unknown session";
+                sessions.remove(session.getId());
+                return "ok";
+            }
+            case "quit" -> {
+                return null;
+            }
+            default -> {
+                return "error unknown command";
+            }
+        }
+    }
+
+    private GameSession findSession(String id) {
+        try {
+            return sessions.get(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     * Usage: {@code GameServer [port]}
+     * @param args command line arguments
+     * @throws IOException if the port cannot be bound
+     * @throws InterruptedException if interrupted while serving
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        GameServer server = new GameServer(args.length > 0 ? Integer.parseInt(args[0]) : 0);
+        System.out.println("Game server listening on port " + server.getPort());
+        server.acceptThread.join();
+    }
+}
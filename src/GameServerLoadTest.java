@@ -0,0 +1,116 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+public class GameServerLoadTest {
+
+    private static final int MAX_PLIES = 200;
+
+    private final LatencyHistogram applyNanos = new LatencyHistogram();
+    private final LatencyHistogram roundTripNanos = new LatencyHistogram();
+
+    private GameServerLoadTest() {
+    }
+
+    /**
+     * Plays random legal games over one connection until a deadline, keeping its own copy of each position to
+     * pick moves from, the way a real client would.
+     * @return number of moves played
+     */
+    private long playClient(int port, long deadlineNanos, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        Position position = new Position();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        long moveCount = 0;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                     StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                     StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            while (System.nanoTime() < deadlineNanos) {
+                String id = request(in, out, "new").substring(3);
+                Fen.parse(GameManager.START_FEN, 0, GameManager.START_FEN.length(), position);
+                for (int ply = 0; ply < MAX_PLIES && System.nanoTime() < deadlineNanos; ply++) {
+                    int count = MoveGenerator.generateLegalMoves(position, moves);
+                    if (count == 0 || position.isFiftyMoveDraw() || position.isThreefoldRepetition()) break;
+                    int move = moves[random.nextInt(count)];
+                    long start = System.nanoTime();
+                    String reply = request(in, out, "move " + id + " " + Moves.toUCI(move));
+                    roundTripNanos.record(System.nanoTime() - start);
+                    if (!reply.startsWith("ok")) throw new IllegalStateException("Server replied: " + reply);
+                    position.makeMove(move);
+                    moveCount++;
+                }
+                request(in, out, "close " + id);
+            }
+            out.write("quit\n");
+            out.flush();
+        }
+        return moveCount;
+    }
+
+    private static void printLatencies(String name, LatencyHistogram histogram) {
+        System.out.printf("%s: p50 %.1f us, p99 %.1f us, p99.9 %.1f us%n", name, histogram.getPercentile(0.5) / 1000.0,
+                histogram.getPercentile(0.99) / 1000.0, histogram.getPercentile(0.999) / 1000.0);
+    }
+
+    private static String request(BufferedReader in, Writer out, String command) throws IOException {
+        out.write(command);
+        out.write('\n');
+        out.flush();
+        String reply = in.readLine();
+        if (reply == null) throw new IOException("Server closed the connection.");
+        return reply;
+    }
+
+    /**
+     * Runs a server and many clients in one JVM and reports moves per second and move latencies.
+     * Usage: {@code GameServerLoadTest [clients] [seconds]}
+     * @param args command line arguments
+     * @throws Exception if a client fails
+     */
+    public static void main(String[] args) throws Exception {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        GameServerLoadTest test = new GameServerLoadTest();
+        GameServer server = new GameServer(0);
+        server.setMoveTimeListener(test.applyNanos::record);
+        ExecutorService clients = GameServer.newThreadPerTaskExecutor("game-server-client");
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < clientCount; i++) {
+            long seed = i;
+            results.add(clients.submit(() -> test.playClient(server.getPort(), deadline, seed)));
+        }
+        long moveCount = 0;
+        try {
+            for (Future<Long> result : results) {
+                moveCount += result.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Client failed.", e.getCause());
+        } finally {
+            clients.shutdownNow();
+            server.shutdown();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d clients, %d moves in %.2f s, %.0f moves/s%n", clientCount, moveCount, elapsed,
+                moveCount / elapsed);
+        printLatencies("Move apply", test.applyNanos);
+        printLatencies("Round trip", test.roundTripNanos);
+    }
+}
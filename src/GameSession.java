@@ -0,0 +1,96 @@
+public class GameSession {
+
+    private final long id;
+    private final Position position = new Position();
+    private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
+    private GameStatus gameStatus;
+
+    /**
+     * Constructor for one game of a server. Every session owns its position, and its methods lock only the
+     * session itself, so games on different threads never wait on each other.
+     * @param id of session
+     * @param fenString starting position as a FEN String
+     */
+    public GameSession(long id, String fenString) {
+        this.id = id;
+        int end = Fen.parse(fenString, 0, fenString.length(), position);
+        if (!fenString.substring(end).isBlank()) throw new IllegalArgumentException("Illegal FEN String given.");
+        gameStatus = MoveGenerator.getGameStatusWithDraws(position, moveBuffer);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Plays a move given in UCI notation, if it is legal.
+     * @param uci move such as "e2e4" or "e7e8q"
+     * @return status of the game after the move, or null if the move is not legal or the game is over
+     */
+    public synchronized GameStatus playMove(CharSequence uci) {
+        if (gameStatus.isGameOver()) return null;
+        int count = MoveGenerator.generateLegalMoves(position, moveBuffer);
+        int move = Moves.NONE;
+        for (int i = 0; i < count && move == Moves.NONE; i++) {
+            if (isSameMove(moveBuffer[i], uci)) move = moveBuffer[i];
+        }
+        if (move == Moves.NONE) return null;
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        position.makeMove(move);
+        gameStatus = MoveGenerator.getGameStatusWithDraws(position, moveBuffer);
+        if (Metrics.ENABLED) Metrics.record(Metrics.Timer.MOVE_APPLICATION, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.setMove(uci.toString());
+            event.setGameStatus(gameStatus.toString());
+            event.commit();
+        }
+        return gameStatus;
+    }
+
+    /**
+     * Compares a move to UCI text without building a String for it.
+     */
+    private static boolean isSameMove(int move, CharSequence uci) {
+        int promotion = Moves.promotion(move);
+        if (uci.length() != (promotion == 0 ? 4 : 5)) return false;
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        return uci.charAt(0) == 'a' + Position.fileOf(from) && uci.charAt(1) == '8' - Position.rankOf(from)
+                && uci.charAt(2) == 'a' + Position.fileOf(to) && uci.charAt(3) == '8' - Position.rankOf(to)
+                && (promotion == 0 || uci.charAt(4) == " nbrq".charAt(promotion));
+    }
+
+    /**
+     * Takes back the last move played.
+     * @return true if a move was taken back, false if there was none
+     */
+    public synchronized boolean undoMove() {
+        if (position.getLastMove() == Moves.NONE) return false;
+        position.unmakeMove();
+        gameStatus = MoveGenerator.getGameStatusWithDraws(position, moveBuffer);
+        return true;
+    }
+
+    public synchronized GameStatus getGameStatus() {
+        return gameStatus;
+    }
+
+    /**
+     * Gets the current position of the game.
+     * @return position as a FEN String
+     */
+    public synchronized String getFENState() {
+        return Fen.toFEN(position);
+    }
+
+    /**
+     * Checks whether the game is over by mate, stalemate, the fifty move rule or threefold repetition.
+     * @return true if no more moves should be played
+     */
+    public synchronized boolean isOver() {
+        return gameStatus.isGameOver();
+    }
+}
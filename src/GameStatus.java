@@ -0,0 +1,16 @@
+public enum GameStatus {
+    PLAYING,
+    CHECK,
+    CHECKMATE,
+    STALEMATE,
+    FIFTY_MOVE_DRAW,
+    REPETITION_DRAW;
+
+    /**
+     * Checks whether no more moves should be played.
+     * @return true for mate, stalemate and draws
+     */
+    public boolean isGameOver() {
+        return this != PLAYING && this != CHECK;
+    }
+}
@@ -1,12 +1,7 @@
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-
-import java.util.ArrayList;
-
 public class King extends Piece {
 
-    public King (boolean isWhite) {
-        super(isWhite, "king", 0);
+    King(boolean isWhite) {
+        super(Position.KING, isWhite, "king", 0);
     }
 
     @Override
@@ -18,22 +13,7 @@ public class King extends Piece {
         return isWhite() ? 'K' : 'k';
     }
     @Override
-    public ArrayList<Move> getBasicMoves(int rank, int file, BoardMoveValidator validator) {
-        ArrayList<Move> moves = new ArrayList<>();
-        int[][] directions = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}, {1, 0}, {-1, 0}, {0, 1}, {0, -1}};
-        for (int i = 0; i < directions.length; i++) {
-            Move move = new Move(directions[i][0] + rank, directions[i][1] + file);
-            if (validator.validate(isWhite(), move) != MoveStatus.INVALID) moves.add(move);
-        }
-        if ((isWhite() && rank != 7) || (!isWhite() && rank != 0)) {
-            return moves;
-        }
-        Move move = new Move(rank, file + 2);
-        if (validator.validate(isWhite(), move) == MoveStatus.VALID) moves.add(move);
-        move = new Move(rank, file - 2);
-        if (validator.validate(isWhite(), move) == MoveStatus.VALID) moves.add(move);
-
-
-        return moves;
+    public int getBasicMoves(int square, Position position, int[] moves, int count) {
+        return MoveGenerator.addKingMoves(position, square, isWhite(), moves, count);
     }
-}
\ No newline at end of file
+}
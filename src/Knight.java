@@ -1,12 +1,7 @@
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-
-import java.util.ArrayList;
-
 public class Knight extends Piece {
 
-    public Knight(boolean isWhite) {
-        super(isWhite, "knight", 3);
+    Knight(boolean isWhite) {
+        super(Position.KNIGHT, isWhite, "knight", 3);
     }
 
     @Override
@@ -20,25 +15,7 @@ public class Knight extends Piece {
     }
 
     @Override
-    public ArrayList<Move> getBasicMoves(int rank, int file, BoardMoveValidator validator) {
-        ArrayList<Move> moves = new ArrayList<>();
-        Move move = new Move(rank - 2, file + 1);
-        if (validator.validate(isWhite(), move) != MoveStatus.INVALID) moves.add(move);
-        move = new Move(rank - 2, file - 1);
-        if (validator.validate(isWhite(), move) != MoveStatus.INVALID) moves.add(move);
-        move = new Move(rank - 1, file + 2);
-        if (validator.validate(isWhite(), move) != MoveStatus.INVALID) moves.add(move);
-        move = new Move(rank - 1, file - 2);
-        if (validator.validate(isWhite(), move) != MoveStatus.INVALID) moves.add(move);
-        move = new Move(rank + 2, file + 1);
-        if (validator.validate(isWhite(), move) != MoveStatus.INVALID) moves.add(move);
-        move = new Move(rank + 2, file - 1);
-        if (validator.validate(isWhite(), move) != MoveStatus.INVALID) moves.add(move);
-        move = new Move(rank + 1, file + 2);
-        if (validator.validate(isWhite(), move) != MoveStatus.INVALID) moves.add(move);
-        move = new Move(rank + 1, file - 2);
-        if (validator.validate(isWhite(), move) != MoveStatus.INVALID) moves.add(move);
-
-        return moves;
+    public int getBasicMoves(int square, Position position, int[] moves, int count) {
+        return MoveGenerator.addKnightMoves(position, square, isWhite(), moves, count);
     }
-}
\ No newline at end of file
+}
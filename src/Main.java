@@ -6,16 +6,31 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
+import java.io.IOException;
 
 
 public class Main extends Application {
-    public static void main(String[] args) {
+
+    private static final double BOARD_SIZE_PIXELS = 700;
+
+    /**
+     * Starts the game window, or with the argument "uci" runs the engine headless over standard input and output.
+     * With the argument "canvas" the board is drawn on a single canvas instead of a node per tile.
+     * @param args command line arguments
+     * @throws IOException if the engine's streams fail
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("uci")) {
+            UciEngine.main(args);
+            return;
+        }
         launch(args);
     }
 
     @Override
     public void start(Stage stage) throws Exception {
-        GameManager gm = new GameManager();
+        boolean isCanvas = getParameters().getRaw().contains("canvas");
+        GameManager gm = new GameManager(!isCanvas);
 
         Group root = new Group();
         Scene scene = new Scene(root, Color.rgb(33, 33, 33));
@@ -32,7 +47,18 @@ public class Main extends Application {
         text.setFont(Font.font("Arial", 50));
         text.setFill(Color.WHITE);
         root.getChildren().add(text);
-        root.getChildren().add(gm.getBoard());
+        gm.setStatusHandler((status, isWhiteToPlay) -> {
+            String side = isWhiteToPlay ? "White" : "Black";
+            switch (status) {
+                case CHECK -> text.setText(side + " is in check!");
+                case CHECKMATE -> text.setText("Checkmate, " + (isWhiteToPlay ? "Black" : "White") + " wins!");
+                case STALEMATE -> text.setText("Stalemate!");
+                case FIFTY_MOVE_DRAW -> text.setText("Draw by the fifty move rule!");
+                case REPETITION_DRAW -> text.setText("Draw by threefold repetition!");
+                default -> text.setText(side + " to play");
+            }
+        });
+        root.getChildren().add(isCanvas ? gm.createCanvasBoard(BOARD_SIZE_PIXELS, true) : gm.getBoard());
 
         stage.setScene(scene);
         stage.show();
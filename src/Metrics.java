@@ -0,0 +1,171 @@
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Metrics {
+
+    /**
+     * Whether metrics are collected, set once with -Dchess.metrics=true. Being a constant, every check of it
+     * is compiled away when it is false, so instrumented code runs as if it were not instrumented.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("chess.metrics");
+
+    /**
+     * Counted events.
+     */
+    public enum Counter {
+        MOVE_GENERATIONS,
+        MOVES_GENERATED,
+        LEGAL_MOVE_GENERATIONS,
+        LEGAL_MOVES_GENERATED,
+        MOVES_MADE,
+        SEARCH_NODES,
+        TABLE_PROBES,
+        TABLE_HITS
+    }
+
+    /**
+     * Timed operations, each with a latency histogram.
+     */
+    public enum Timer {
+        MOVE_GENERATION,
+        LEGAL_MOVE_GENERATION,
+        MOVE_APPLICATION,
+        FEN_LOAD,
+        SEARCH_ITERATION
+    }
+
+    private static final LongAdder[] COUNTERS = new LongAdder[Counter.values().length];
+    private static final LatencyHistogram[] TIMERS = new LatencyHistogram[Timer.values().length];
+    // Nodes and number of iterations completed at each depth, for effective branching factors.
+    private static final LongAdder[] DEPTH_NODES = new LongAdder[Search.MAX_PLY + 1];
+    private static final LongAdder[] DEPTH_ITERATIONS = new LongAdder[Search.MAX_PLY + 1];
+    private static ScheduledExecutorService dumpExecutor;
+    private static ScheduledFuture<?> dumpTask;
+
+    static {
+        for (int i = 0; i < COUNTERS.length; i++) {
+            COUNTERS[i] = new LongAdder();
+        }
+        for (int i = 0; i < TIMERS.length; i++) {
+            TIMERS[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i <= Search.MAX_PLY; i++) {
+            DEPTH_NODES[i] = new LongAdder();
+            DEPTH_ITERATIONS[i] = new LongAdder();
+        }
+        long dumpMillis = Long.getLong("chess.metrics.dumpMillis", 0);
+        if (ENABLED && dumpMillis > 0) startPeriodicDump(dumpMillis, System.err);
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Counts one event.
+     * @param counter to count on
+     */
+    public static void increment(Counter counter) {
+        if (ENABLED) COUNTERS[counter.ordinal()].increment();
+    }
+
+    /**
+     * Counts several events at once.
+     * @param counter to count on
+     * @param amount number of events
+     */
+    public static void add(Counter counter, long amount) {
+        if (ENABLED) COUNTERS[counter.ordinal()].add(amount);
+    }
+
+    /**
+     * Records how long an operation took. Callers should only read the clock when ENABLED is true.
+     * @param timer operation timed
+     * @param nanos time taken in nanoseconds
+     */
+    public static void record(Timer timer, long nanos) {
+        if (ENABLED) TIMERS[timer.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records a completed search iteration.
+     * @param depth of iteration
+     * @param nodes searched in this iteration alone
+     * @param nanos time the iteration took
+     */
+    public static void recordIteration(int depth, long nodes, long nanos) {
+        if (!ENABLED) return;
+        DEPTH_NODES[depth].add(nodes);
+        DEPTH_ITERATIONS[depth].increment();
+        COUNTERS[Counter.SEARCH_NODES.ordinal()].add(nodes);
+        TIMERS[Timer.SEARCH_ITERATION.ordinal()].record(nanos);
+    }
+
+    /**
+     * Copies every metric collected so far. Metrics recorded while copying may or may not be included.
+     * @return snapshot of the metrics
+     */
+    public static MetricsSnapshot snapshot() {
+        long[] counts = new long[COUNTERS.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = COUNTERS[i].sum();
+        }
+        LatencyHistogram[] timers = new LatencyHistogram[TIMERS.length];
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = TIMERS[i].copy();
+        }
+        long[] depthNodes = new long[DEPTH_NODES.length];
+        long[] depthIterations = new long[DEPTH_ITERATIONS.length];
+        for (int i = 0; i < depthNodes.length; i++) {
+            depthNodes[i] = DEPTH_NODES[i].sum();
+            depthIterations[i] = DEPTH_ITERATIONS[i].sum();
+        }
+        return new MetricsSnapshot(counts, timers, depthNodes, depthIterations);
+    }
+
+    /**
+     * Sets every metric back to zero.
+     */
+    public static void reset() {
+        for (LongAdder counter : COUNTERS) {
+            counter.reset();
+        }
+        for (LatencyHistogram timer : TIMERS) {
+            timer.reset();
+        }
+        for (int i = 0; i <= Search.MAX_PLY; i++) {
+            DEPTH_NODES[i].reset();
+            DEPTH_ITERATIONS[i].reset();
+        }
+    }
+
+    /**
+     * Prints a snapshot at a fixed rate on a daemon thread, replacing any dump already running.
+     * Also started at class load by -Dchess.metrics.dumpMillis, printing to standard error.
+     * @param periodMillis time between dumps in milliseconds
+     * @param out stream to print to
+     */
+    public static synchronized void startPeriodicDump(long periodMillis, PrintStream out) {
+        stopPeriodicDump();
+        if (dumpExecutor == null) {
+            dumpExecutor = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+                Thread thread = new Thread(runnable, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        dumpTask = dumpExecutor.scheduleAtFixedRate(() -> out.println(snapshot()), periodMillis, periodMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic dump, if one is running.
+     */
+    public static synchronized void stopPeriodicDump() {
+        if (dumpTask != null) dumpTask.cancel(false);
+        dumpTask = null;
+    }
+}
@@ -0,0 +1,91 @@
+public final class MetricsSnapshot {
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p99.9"};
+
+    private final long[] counts;
+    private final LatencyHistogram[] timers;
+    private final long[] depthNodes;
+    private final long[] depthIterations;
+
+    /**
+     * Constructor for a snapshot, taken by Metrics.snapshot.
+     * @param counts indexed by Counter ordinal
+     * @param timers indexed by Timer ordinal, not shared with anything still recording
+     * @param depthNodes search nodes at each iteration depth
+     * @param depthIterations completed iterations at each depth
+     */
+    MetricsSnapshot(long[] counts, LatencyHistogram[] timers, long[] depthNodes, long[] depthIterations) {
+        this.counts = counts;
+        this.timers = timers;
+        this.depthNodes = depthNodes;
+        this.depthIterations = depthIterations;
+    }
+
+    public long getCount(Metrics.Counter counter) {
+        return counts[counter.ordinal()];
+    }
+
+    public LatencyHistogram getTimer(Metrics.Timer timer) {
+        return timers[timer.ordinal()];
+    }
+
+    /**
+     * Gets the share of transposition table probes that found their position.
+     * @return hit rate between 0 and 1, or 0 if nothing was probed
+     */
+    public double getTableHitRate() {
+        long probes = getCount(Metrics.Counter.TABLE_PROBES);
+        return probes == 0 ? 0 : (double) getCount(Metrics.Counter.TABLE_HITS) / probes;
+    }
+
+    /**
+     * Gets the effective branching factor at a depth: how many times more nodes an iteration to this depth
+     * searched, on average, than one to the depth before.
+     * @param depth of iteration, at least 2
+     * @return branching factor, or 0 if either depth was never completed
+     */
+    public double getBranchingFactor(int depth) {
+        if (depth < 2 || depth >= depthNodes.length) return 0;
+        if (depthIterations[depth] == 0 || depthIterations[depth - 1] == 0) return 0;
+        double nodes = (double) depthNodes[depth] / depthIterations[depth];
+        double previousNodes = (double) depthNodes[depth - 1] / depthIterations[depth - 1];
+        return previousNodes == 0 ? 0 : nodes / previousNodes;
+    }
+
+    /**
+     * Gets the deepest iteration completed.
+     * @return depth, or 0 if no search ran
+     */
+    public int getMaxDepth() {
+        for (int depth = depthIterations.length - 1; depth > 0; depth--) {
+            if (depthIterations[depth] > 0) return depth;
+        }
+        return 0;
+    }
+
+    /**
+     * Formats the snapshot as a report of counters, latency percentiles and branching factors.
+     * @return multi-line report
+     */
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder("metrics");
+        for (Metrics.Counter counter : Metrics.Counter.values()) {
+            report.append('\n').append(counter).append(' ').append(getCount(counter));
+        }
+        report.append(String.format("%ntable hit rate %.3f", getTableHitRate()));
+        for (Metrics.Timer timer : Metrics.Timer.values()) {
+            LatencyHistogram histogram = getTimer(timer);
+            report.append('\n').append(timer).append(" count ").append(histogram.getCount());
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                report.append(String.format(" %s %.1f us", PERCENTILE_NAMES[i],
+                        histogram.getPercentile(PERCENTILES[i]) / 1000.0));
+            }
+        }
+        for (int depth = 2; depth <= getMaxDepth(); depth++) {
+            report.append(String.format("%nbranching factor depth %d %.2f", depth, getBranchingFactor(depth)));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,27 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("chess.Move")
+@Label("Move")
+@Category("Chess")
+@Description("Playing a move in a game and working out the game status after it")
+public class MoveEvent extends Event {
+
+    @Label("Move")
+    @Description("Move in UCI notation")
+    private String move;
+
+    @Label("Game Status")
+    private String gameStatus;
+
+    public void setMove(String move) {
+        this.move = move;
+    }
+
+    public void setGameStatus(String gameStatus) {
+        this.gameStatus = gameStatus;
+    }
+}
@@ -0,0 +1,364 @@
+public final class MoveGenerator {
+
+    // No legal chess position has more than 218 moves.
+    public static final int MAX_MOVES = 256;
+
+    private static final long PROMOTION_RANKS = 0xFF000000000000FFL;
+    private static final int KING_HOME_FILE = 4;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Allocates one move buffer per ply, to be reused for every node searched at that ply.
+     * @param plies number of plies
+     * @return buffers, each MAX_MOVES long
+     */
+    public static int[][] newPlyBuffers(int plies) {
+        return new int[plies][MAX_MOVES];
+    }
+
+    /**
+     * Generates pseudo-legal moves for the side to play. Moves may leave the mover's own king in check.
+     * @param position to generate moves for
+     * @param moves buffer to write packed moves into, at least MAX_MOVES long
+     * @return number of moves written
+     */
+    public static int generateMoves(Position position, int[] moves) {
+        if (!Metrics.ENABLED) return addPseudoLegalMoves(position, moves);
+        long start = System.nanoTime();
+        int count = addPseudoLegalMoves(position, moves);
+        Metrics.record(Metrics.Timer.MOVE_GENERATION, System.nanoTime() - start);
+        Metrics.increment(Metrics.Counter.MOVE_GENERATIONS);
+        Metrics.add(Metrics.Counter.MOVES_GENERATED, count);
+        return count;
+    }
+
+    private static int addPseudoLegalMoves(Position position, int[] moves) {
+        boolean isWhite = position.isWhiteToPlay();
+        int count = 0;
+        long pawns = position.getPieceBoard(Position.pieceCode(Position.PAWN, isWhite));
+        while (pawns != 0) {
+            count = addPawnMoves(position, Long.numberOfTrailingZeros(pawns), isWhite, moves, count);
+            pawns &= pawns - 1;
+        }
+        long knights = position.getPieceBoard(Position.pieceCode(Position.KNIGHT, isWhite));
+        while (knights != 0) {
+            count = addKnightMoves(position, Long.numberOfTrailingZeros(knights), isWhite, moves, count);
+            knights &= knights - 1;
+        }
+        long bishops = position.getPieceBoard(Position.pieceCode(Position.BISHOP, isWhite));
+        while (bishops != 0) {
+            count = addBishopMoves(position, Long.numberOfTrailingZeros(bishops), isWhite, moves, count);
+            bishops &= bishops - 1;
+        }
+        long rooks = position.getPieceBoard(Position.pieceCode(Position.ROOK, isWhite));
+        while (rooks != 0) {
+            count = addRookMoves(position, Long.numberOfTrailingZeros(rooks), isWhite, moves, count);
+            rooks &= rooks - 1;
+        }
+        long queens = position.getPieceBoard(Position.pieceCode(Position.QUEEN, isWhite));
+        while (queens != 0) {
+            count = addQueenMoves(position, Long.numberOfTrailingZeros(queens), isWhite, moves, count);
+            queens &= queens - 1;
+        }
+        int king = position.getKingSquare(isWhite);
+        if (king != Position.NO_SQUARE) count = addKingMoves(position, king, isWhite, moves, count);
+        return count;
+    }
+
+    /**
+     * Generates only moves that leave the mover's king safe. Checking pieces and pinned pieces are found once
+     * from attack maps, so no move has to be played out to test it. Positions without a king for the side
+     * to play, which only come up while setting up a board, get pseudo-legal moves instead.
+     * @param position to generate moves for, not changed
+     * @param moves buffer to write packed moves into, at least MAX_MOVES long
+     * @return number of moves written
+     */
+    public static int generateLegalMoves(Position position, int[] moves) {
+        if (!Metrics.ENABLED) return addLegalMoves(position, moves);
+        long start = System.nanoTime();
+        int count = addLegalMoves(position, moves);
+        Metrics.record(Metrics.Timer.LEGAL_MOVE_GENERATION, System.nanoTime() - start);
+        Metrics.increment(Metrics.Counter.LEGAL_MOVE_GENERATIONS);
+        Metrics.add(Metrics.Counter.LEGAL_MOVES_GENERATED, count);
+        return count;
+    }
+
+    private static int addLegalMoves(Position position, int[] moves) {
+        boolean isWhite = position.isWhiteToPlay();
+        int king = position.getKingSquare(isWhite);
+        if (king == Position.NO_SQUARE) return generateMoves(position, moves);
+        long occupancy = position.getOccupancy();
+        long checkers = position.attackersTo(king, !isWhite, occupancy);
+        int count = addLegalKingSteps(position, king, isWhite, moves, 0);
+        // In double check only the king can move.
+        if ((checkers & (checkers - 1)) != 0) return count;
+
+        long targets;
+        if (checkers == 0) {
+            targets = ~position.getColorOccupancy(isWhite);
+            count = addCastlingMoves(position, king, isWhite, moves, count);
+        } else {
+            targets = checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+        }
+        long pinned = getPinnedPieces(position, king, isWhite);
+
+        long pawns = position.getPieceBoard(Position.pieceCode(Position.PAWN, isWhite));
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            long allowed = (pinned & (1L << from)) != 0 ? targets & Attacks.line(king, from) : targets;
+            count = addPawnMoves(position, from, isWhite, allowed, moves, count);
+            int enPassantSquare = position.getEnPassantSquare();
+            if (enPassantSquare != Position.NO_SQUARE
+                    && (Attacks.pawnAttacks(from, isWhite) & (1L << enPassantSquare)) != 0
+                    && isEnPassantLegal(position, king, from, enPassantSquare, isWhite)) {
+                moves[count++] = Moves.encode(from, enPassantSquare, 0, Moves.CAPTURE | Moves.EN_PASSANT);
+            }
+            pawns &= pawns - 1;
+        }
+        // A pinned knight can never stay on the pin line, so pinned knights have no moves.
+        long knights = position.getPieceBoard(Position.pieceCode(Position.KNIGHT, isWhite)) & ~pinned;
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            count = addMoves(position, from, isWhite, Attacks.knightAttacks(from) & targets, moves, count);
+            knights &= knights - 1;
+        }
+        long bishops = position.getPieceBoard(Position.pieceCode(Position.BISHOP, isWhite));
+        long rooks = position.getPieceBoard(Position.pieceCode(Position.ROOK, isWhite));
+        long queens = position.getPieceBoard(Position.pieceCode(Position.QUEEN, isWhite));
+        long sliders = bishops | rooks | queens;
+        while (sliders != 0) {
+            int from = Long.numberOfTrailingZeros(sliders);
+            long bit = 1L << from;
+            long attacks = (bishops & bit) != 0 ? Attacks.bishopAttacks(from, occupancy)
+                    : (rooks & bit) != 0 ? Attacks.rookAttacks(from, occupancy)
+                    : Attacks.queenAttacks(from, occupancy);
+            long allowed = (pinned & bit) != 0 ? targets & Attacks.line(king, from) : targets;
+            count = addMoves(position, from, isWhite, attacks & allowed, moves, count);
+            sliders &= sliders - 1;
+        }
+        return count;
+    }
+
+    /**
+     * Generates the legal moves of the piece on one square. Pieces of the side not to play have no moves.
+     * @param position to generate moves for, not changed
+     * @param square of piece
+     * @param moves buffer to write packed moves into, at least MAX_MOVES long
+     * @return number of moves written
+     */
+    public static int generateLegalMovesFrom(Position position, int square, int[] moves) {
+        int legalCount = generateLegalMoves(position, moves);
+        int count = 0;
+        for (int i = 0; i < legalCount; i++) {
+            if (Moves.from(moves[i]) == square) moves[count++] = moves[i];
+        }
+        return count;
+    }
+
+    /**
+     * Finds the mover's pieces that stand alone between their king and an enemy slider, and so may only move
+     * along that line.
+     * @param position to look at
+     * @param king square of the mover's king
+     * @param isWhite color of the mover
+     * @return pinned pieces as a bitboard
+     */
+    public static long getPinnedPieces(Position position, int king, boolean isWhite) {
+        long occupancy = position.getOccupancy();
+        long enemyQueens = position.getPieceBoard(Position.pieceCode(Position.QUEEN, !isWhite));
+        long snipers = (Attacks.rookAttacks(king, 0L)
+                & (position.getPieceBoard(Position.pieceCode(Position.ROOK, !isWhite)) | enemyQueens))
+                | (Attacks.bishopAttacks(king, 0L)
+                & (position.getPieceBoard(Position.pieceCode(Position.BISHOP, !isWhite)) | enemyQueens));
+        long own = position.getColorOccupancy(isWhite);
+        long pinned = 0L;
+        while (snipers != 0) {
+            long blockers = Attacks.between(king, Long.numberOfTrailingZeros(snipers)) & occupancy;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) pinned |= blockers & own;
+            snipers &= snipers - 1;
+        }
+        return pinned;
+    }
+
+    /**
+     * Evaluates an en passant capture by lifting both pawns and dropping the capturer on its target, which
+     * catches the rare case of two pawns leaving a rank together and exposing the king to a rook.
+     */
+    private static boolean isEnPassantLegal(Position position, int king, int from, int to, boolean isWhite) {
+        int captured = to + (isWhite ? Position.BOARD_SIZE : -Position.BOARD_SIZE);
+        long occupancy = (position.getOccupancy() ^ (1L << from) ^ (1L << captured)) | (1L << to);
+        return (position.attackersTo(king, !isWhite, occupancy) & ~(1L << captured)) == 0;
+    }
+
+    /**
+     * Adds king steps to squares that are not attacked once the king has left its square, so a king in check
+     * from a slider cannot step back along the checking line.
+     */
+    private static int addLegalKingSteps(Position position, int king, boolean isWhite, int[] moves, int count) {
+        long occupancy = position.getOccupancy() ^ (1L << king);
+        long targets = Attacks.kingAttacks(king) & ~position.getColorOccupancy(isWhite);
+        long safe = 0L;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            if (position.attackersTo(to, !isWhite, occupancy) == 0) safe |= 1L << to;
+            targets &= targets - 1;
+        }
+        return addMoves(position, king, isWhite, safe, moves, count);
+    }
+
+    /**
+     * Counts legal moves of the side to play and decides the state of the game.
+     * @param position to look at, not changed
+     * @param moves scratch buffer, at least MAX_MOVES long
+     * @return CHECKMATE or STALEMATE if the side to play has no legal move, otherwise CHECK or PLAYING
+     */
+    public static GameStatus getGameStatus(Position position, int[] moves) {
+        boolean isInCheck = position.isInCheck(position.isWhiteToPlay());
+        if (generateLegalMoves(position, moves) == 0) return isInCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        return isInCheck ? GameStatus.CHECK : GameStatus.PLAYING;
+    }
+
+    /**
+     * Gets the status of a game, also ending it in a draw once fifty moves pass without a capture or pawn move
+     * or the position occurs a third time. Mate on the fiftieth move still counts as mate.
+     * @param position to check, with the moves of the game on its undo stack
+     * @param moves scratch buffer, at least MAX_MOVES long
+     * @return status of the game
+     */
+    public static GameStatus getGameStatusWithDraws(Position position, int[] moves) {
+        GameStatus status = getGameStatus(position, moves);
+        if (status.isGameOver()) return status;
+        if (position.isFiftyMoveDraw()) return GameStatus.FIFTY_MOVE_DRAW;
+        return position.isThreefoldRepetition() ? GameStatus.REPETITION_DRAW : status;
+    }
+
+    /**
+     * Adds pushes, captures, en passant and promotions of one pawn.
+     * @param position pawn is in
+     * @param from square of pawn
+     * @param isWhite color of pawn
+     * @param moves buffer to write packed moves into
+     * @param count number of moves already in the buffer
+     * @return number of moves in the buffer afterwards
+     */
+    public static int addPawnMoves(Position position, int from, boolean isWhite, int[] moves, int count) {
+        count = addPawnMoves(position, from, isWhite, -1L, moves, count);
+        int enPassantSquare = position.getEnPassantSquare();
+        if (enPassantSquare != Position.NO_SQUARE
+                && (Attacks.pawnAttacks(from, isWhite) & (1L << enPassantSquare)) != 0) {
+            moves[count++] = Moves.encode(from, enPassantSquare, 0, Moves.CAPTURE | Moves.EN_PASSANT);
+        }
+        return count;
+    }
+
+    /**
+     * Adds pushes, captures and promotions of one pawn that land on allowed squares. En passant is left out.
+     * @param allowed squares the pawn may move to
+     */
+    private static int addPawnMoves(Position position, int from, boolean isWhite, long allowed, int[] moves,
+                                    int count) {
+        long occupancy = position.getOccupancy();
+        int forward = isWhite ? -Position.BOARD_SIZE : Position.BOARD_SIZE;
+        int startRank = isWhite ? Position.BOARD_SIZE - 2 : 1;
+        int to = from + forward;
+        if ((occupancy & (1L << to)) == 0) {
+            if ((allowed & (1L << to)) != 0) count = addPawnMove(from, to, 0, moves, count);
+            int doubleTo = to + forward;
+            if (Position.rankOf(from) == startRank && (occupancy & (1L << doubleTo)) == 0
+                    && (allowed & (1L << doubleTo)) != 0) {
+                moves[count++] = Moves.encode(from, doubleTo, 0, Moves.DOUBLE_PUSH);
+            }
+        }
+        long captures = Attacks.pawnAttacks(from, isWhite) & position.getColorOccupancy(!isWhite) & allowed;
+        while (captures != 0) {
+            count = addPawnMove(from, Long.numberOfTrailingZeros(captures), Moves.CAPTURE, moves, count);
+            captures &= captures - 1;
+        }
+        return count;
+    }
+
+    private static int addPawnMove(int from, int to, int flags, int[] moves, int count) {
+        if ((PROMOTION_RANKS & (1L << to)) != 0) {
+            moves[count++] = Moves.encode(from, to, Position.QUEEN, flags);
+            moves[count++] = Moves.encode(from, to, Position.ROOK, flags);
+            moves[count++] = Moves.encode(from, to, Position.BISHOP, flags);
+            moves[count++] = Moves.encode(from, to, Position.KNIGHT, flags);
+        } else {
+            moves[count++] = Moves.encode(from, to, 0, flags);
+        }
+        return count;
+    }
+
+    public static int addKnightMoves(Position position, int from, boolean isWhite, int[] moves, int count) {
+        return addMoves(position, from, isWhite, Attacks.knightAttacks(from), moves, count);
+    }
+
+    public static int addBishopMoves(Position position, int from, boolean isWhite, int[] moves, int count) {
+        return addMoves(position, from, isWhite, Attacks.bishopAttacks(from, position.getOccupancy()), moves, count);
+    }
+
+    public static int addRookMoves(Position position, int from, boolean isWhite, int[] moves, int count) {
+        return addMoves(position, from, isWhite, Attacks.rookAttacks(from, position.getOccupancy()), moves, count);
+    }
+
+    public static int addQueenMoves(Position position, int from, boolean isWhite, int[] moves, int count) {
+        return addMoves(position, from, isWhite, Attacks.queenAttacks(from, position.getOccupancy()), moves, count);
+    }
+
+    /**
+     * Adds steps and castling of one king. The king may not castle out of, through or into check.
+     * @param position king is in
+     * @param king square of king
+     * @param isWhite color of king
+     * @param moves buffer to write packed moves into
+     * @param count number of moves already in the buffer
+     * @return number of moves in the buffer afterwards
+     */
+    public static int addKingMoves(Position position, int king, boolean isWhite, int[] moves, int count) {
+        count = addMoves(position, king, isWhite, Attacks.kingAttacks(king), moves, count);
+        return addCastlingMoves(position, king, isWhite, moves, count);
+    }
+
+    /**
+     * Adds castling of one king. Castling rights alone are not trusted, the king has to stand on its home square
+     * and the rook on its corner, so a position set up with rights its pieces do not match never castles.
+     */
+    private static int addCastlingMoves(Position position, int king, boolean isWhite, int[] moves, int count) {
+        int rights = position.getCastlingRights();
+        int kingSide = isWhite ? Position.WHITE_KING_SIDE : Position.BLACK_KING_SIDE;
+        int queenSide = isWhite ? Position.WHITE_QUEEN_SIDE : Position.BLACK_QUEEN_SIDE;
+        int home = Position.square(isWhite ? Position.BOARD_SIZE - 1 : 0, KING_HOME_FILE);
+        if ((rights & (kingSide | queenSide)) == 0 || king != home || position.isAttacked(king, !isWhite)) {
+            return count;
+        }
+        long rooks = position.getPieceBoard(Position.pieceCode(Position.ROOK, isWhite));
+        long occupancy = position.getOccupancy();
+        if ((rights & kingSide) != 0 && (rooks & (1L << (king + 3))) != 0
+                && (occupancy & ((1L << (king + 1)) | (1L << (king + 2)))) == 0
+                && !position.isAttacked(king + 1, !isWhite)
+                && !position.isAttacked(king + 2, !isWhite)) {
+            moves[count++] = Moves.encode(king, king + 2, 0, Moves.CASTLE);
+        }
+        if ((rights & queenSide) != 0 && (rooks & (1L << (king - 4))) != 0
+                && (occupancy & ((1L << (king - 1)) | (1L << (king - 2)) | (1L << (king - 3)))) == 0
+                && !position.isAttacked(king - 1, !isWhite)
+                && !position.isAttacked(king - 2, !isWhite)) {
+            moves[count++] = Moves.encode(king, king - 2, 0, Moves.CASTLE);
+        }
+        return count;
+    }
+
+    private static int addMoves(Position position, int from, boolean isWhite, long attacks, int[] moves, int count) {
+        long enemy = position.getColorOccupancy(!isWhite);
+        long targets = attacks & ~position.getColorOccupancy(isWhite);
+        while (targets != 0) {
+            long bit = targets & -targets;
+            int flags = (enemy & bit) != 0 ? Moves.CAPTURE : 0;
+            moves[count++] = Moves.encode(from, Long.numberOfTrailingZeros(bit), 0, flags);
+            targets ^= bit;
+        }
+        return count;
+    }
+}
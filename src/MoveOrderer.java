@@ -0,0 +1,159 @@
+import java.util.Arrays;
+
+public final class MoveOrderer {
+
+    // Score bands, so every hash move comes before every capture, every capture before every killer and
+    // every killer before every other quiet move, whose history score stays below KILLER_SCORE.
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 29;
+    private static final int KILLER_SCORE = 1 << 28;
+    private static final int MAX_HISTORY = KILLER_SCORE - 1;
+    private static final int KILLERS_PER_PLY = 2;
+
+    // Material scores by piece code, taken from the pieces themselves. Scaled for MVV-LVA, so the most
+    // valuable victim decides first and the least valuable attacker breaks ties.
+    private static final int[] MATERIAL_SCORES = new int[Position.PIECE_CODE_COUNT];
+    private static final int VICTIM_SCALE = 16;
+    // The king has no material score, but as an attacker it risks the most, so it goes after the queen.
+    private static final int[] ATTACKER_SCORES = new int[Position.PIECE_CODE_COUNT];
+    private static final int KING_ATTACKER_SCORE = 10;
+
+    static {
+        for (int code = 0; code < MATERIAL_SCORES.length; code++) {
+            MATERIAL_SCORES[code] = Piece.fromCode(code).getMaterialScore();
+            ATTACKER_SCORES[code] = Position.kindOf(code) == Position.KING ? KING_ATTACKER_SCORE
+                    : MATERIAL_SCORES[code];
+        }
+    }
+
+    private final int[] killers = new int[Search.MAX_PLY * KILLERS_PER_PLY];
+    // Butterfly table of how often quiet moves caused cutoffs, by side, from square and to square.
+    private final int[] history = new int[2 * Position.SQUARE_COUNT * Position.SQUARE_COUNT];
+
+    /**
+     * Constructor for the move ordering state of one searching thread: killer moves per ply and a history table.
+     */
+    public MoveOrderer() {
+    }
+
+    /**
+     * Forgets the killer moves of the last search and halves the history, so old cutoffs still help
+     * the next search without outweighing new ones.
+     */
+    public void startSearch() {
+        Arrays.fill(killers, Moves.NONE);
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+
+    /**
+     * Forgets everything learned, for starting a new game.
+     */
+    public void clear() {
+        Arrays.fill(killers, Moves.NONE);
+        Arrays.fill(history, 0);
+    }
+
+    /**
+     * Scores moves for ordering: the hash move first, then captures and promotions by MVV-LVA, then killer
+     * moves, then quiet moves by history.
+     * @param position moves are played in
+     * @param moves buffer of packed moves
+     * @param scores buffer parallel to moves to write scores into
+     * @param count number of moves
+     * @param hashMove best move stored for this position, or Moves.NONE
+     * @param ply distance from the root
+     */
+    public void scoreMoves(Position position, int[] moves, int[] scores, int count, int hashMove, int ply) {
+        int side = position.isWhiteToPlay() ? 0 : 1;
+        int killer = killers[ply * KILLERS_PER_PLY];
+        int secondKiller = killers[ply * KILLERS_PER_PLY + 1];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (!isQuiet(move)) {
+                scores[i] = CAPTURE_SCORE + captureScore(position, move);
+            } else if (move == killer) {
+                scores[i] = KILLER_SCORE + 1;
+            } else if (move == secondKiller) {
+                scores[i] = KILLER_SCORE;
+            } else {
+                scores[i] = history[historyIndex(side, move)];
+            }
+        }
+    }
+
+    /**
+     * Scores a capture or promotion by the value of what it wins, then the value of the piece risked.
+     * En passant takes a pawn, and a promotion adds the value of the new piece.
+     */
+    private static int captureScore(Position position, int move) {
+        int from = Moves.from(move);
+        int attacker = position.getPiece(from);
+        int victim = (move & Moves.EN_PASSANT) != 0 ? Position.PAWN
+                : (move & Moves.CAPTURE) != 0 ? position.getPiece(Moves.to(move)) : Position.EMPTY;
+        int score = (victim == Position.EMPTY ? 0 : MATERIAL_SCORES[victim] * VICTIM_SCALE)
+                - ATTACKER_SCORES[attacker];
+        int promotion = Moves.promotion(move);
+        return promotion == 0 ? score : score + MATERIAL_SCORES[promotion] * VICTIM_SCALE;
+    }
+
+    /**
+     * Moves the best scored move among those not yet searched to the front of them. Selecting one move at
+     * a time instead of sorting the whole buffer saves the work when an early move causes a cutoff.
+     * @param moves buffer of packed moves
+     * @param scores scores parallel to moves, swapped along with them
+     * @param start index of the first move not yet searched
+     * @param count number of moves
+     * @return the move now at start
+     */
+    public static int pickNext(int[] moves, int[] scores, int start, int count) {
+        int best = start;
+        for (int i = start + 1; i < count; i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        if (best != start) {
+            int move = moves[best];
+            moves[best] = moves[start];
+            moves[start] = move;
+            int score = scores[best];
+            scores[best] = scores[start];
+            scores[start] = score;
+        }
+        return moves[start];
+    }
+
+    /**
+     * Learns from a move that caused a beta cutoff. Quiet moves become the first killer of their ply and
+     * gain history by the square of the depth, so cutoffs near the root count most.
+     * @param position the move was played in, before playing it
+     * @param move that caused the cutoff
+     * @param ply distance from the root
+     * @param depth remaining depth of the node
+     */
+    public void onCutoff(Position position, int move, int ply, int depth) {
+        if (!isQuiet(move)) return;
+        int slot = ply * KILLERS_PER_PLY;
+        if (killers[slot] != move) {
+            killers[slot + 1] = killers[slot];
+            killers[slot] = move;
+        }
+        int index = historyIndex(position.isWhiteToPlay() ? 0 : 1, move);
+        history[index] += depth * depth;
+        if (history[index] > MAX_HISTORY) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] >>= 1;
+            }
+        }
+    }
+
+    private static boolean isQuiet(int move) {
+        return (move & Moves.CAPTURE) == 0 && Moves.promotion(move) == 0;
+    }
+
+    private static int historyIndex(int side, int move) {
+        return (side * Position.SQUARE_COUNT + Moves.from(move)) * Position.SQUARE_COUNT + Moves.to(move);
+    }
+}
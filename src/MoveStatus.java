@@ -1,5 +0,0 @@
-public enum MoveStatus {
-    VALID,
-    VALID_STOP,
-    INVALID
-}
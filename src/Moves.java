@@ -0,0 +1,90 @@
+public final class Moves {
+
+    public static final int NONE = 0;
+
+    // Flags describing how a move changes the board beyond moving one piece.
+    public static final int CAPTURE = 1 << 15;
+    public static final int DOUBLE_PUSH = 1 << 16;
+    public static final int EN_PASSANT = 1 << 17;
+    public static final int CASTLE = 1 << 18;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final String PROMOTION_CHARS = " nbrq";
+
+    private Moves() {
+    }
+
+    /**
+     * Packs a move into an int.
+     * @param from square moved from
+     * @param to square moved to
+     * @param promotion piece kind a pawn promotes to, or 0 if not a promotion
+     * @param flags any of CAPTURE, DOUBLE_PUSH, EN_PASSANT and CASTLE
+     * @return packed move
+     */
+    public static int encode(int from, int to, int promotion, int flags) {
+        return from | (to << TO_SHIFT) | (promotion << PROMOTION_SHIFT) | flags;
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * Gets the piece kind a move promotes to.
+     * @param move packed move
+     * @return piece kind, or 0 if not a promotion
+     */
+    public static int promotion(int move) {
+        return (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean hasFlag(int move, int flag) {
+        return (move & flag) != 0;
+    }
+
+    /**
+     * Gets the square of the piece a capture removes, which differs from the target square for en passant.
+     * @param move packed capture
+     * @param isWhite color of the moving side
+     * @return square of captured piece
+     */
+    public static int capturedSquare(int move, boolean isWhite) {
+        int to = to(move);
+        if ((move & EN_PASSANT) == 0) return to;
+        return isWhite ? to + Position.BOARD_SIZE : to - Position.BOARD_SIZE;
+    }
+
+    /**
+     * Converts a square index to algorithmic (chess coordinates) notation.
+     * @param square index
+     * @return string in algorithmic notation
+     */
+    public static String squareToAlg(int square) {
+        char letter = (char) ('a' + Position.fileOf(square));
+        char num = (char) ('8' - Position.rankOf(square));
+        return new String(new char[] {letter, num});
+    }
+
+    /**
+     * Converts a move to long algebraic notation as used by UCI, e.g. "e2e4" or "e7e8q".
+     * @param move packed move
+     * @return move as a string
+     */
+    public static String toUCI(int move) {
+        String uci = squareToAlg(from(move)) + squareToAlg(to(move));
+        int promotion = promotion(move);
+        return promotion == 0 ? uci : uci + PROMOTION_CHARS.charAt(promotion);
+    }
+}
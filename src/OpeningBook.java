@@ -0,0 +1,205 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class OpeningBook {
+
+    // Polyglot entry layout, big-endian: 8 byte key, 2 byte move, 2 byte weight, 4 byte learn value.
+    // Entries are sorted by key, so every entry of a position sits in one run.
+    public static final int ENTRY_SIZE = 16;
+    private static final int MOVE_OFFSET = 8;
+    private static final int WEIGHT_OFFSET = 10;
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private final MappedByteBuffer entries;
+    private final int entryCount;
+    private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+
+    /**
+     * Constructor for a book read straight from a memory-mapped file, so even a large book costs no heap.
+     * Entries are keyed by Polyglot's own key, so any Polyglot book can be read, as well as books written
+     * by build below. An instance is used by one thread at a time, like a search.
+     * @param path of book file
+     * @throws IOException if the file cannot be read
+     */
+    public OpeningBook(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Opening book is larger than 2 GB.");
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        entries.order(ByteOrder.BIG_ENDIAN);
+        entryCount = entries.capacity() / ENTRY_SIZE;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Looks up the book moves of a position. Entries whose move is not legal in the position, which only
+     * happens on a key collision, are left out.
+     * @param position to look up, not changed
+     * @param moves buffer to write packed moves into
+     * @param weights buffer to write the weight of each move into
+     * @return number of moves written, 0 if the position is not in the book
+     */
+    public int probe(Position position, int[] moves, int[] weights) {
+        long key = PolyglotKey.hash(position);
+        int index = findFirst(key);
+        if (index == entryCount || entries.getLong(index * ENTRY_SIZE) != key) return 0;
+        int legalCount = MoveGenerator.generateLegalMoves(position, legalMoves);
+        int count = 0;
+        for (; index < entryCount && entries.getLong(index * ENTRY_SIZE) == key; index++) {
+            int move = findLegalMove(position, entries.getShort(index * ENTRY_SIZE + MOVE_OFFSET), legalCount);
+            if (move == Moves.NONE || count == moves.length) continue;
+            moves[count] = move;
+            weights[count] = Short.toUnsignedInt(entries.getShort(index * ENTRY_SIZE + WEIGHT_OFFSET));
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Picks a book move at random, each move as likely as its share of the total weight.
+     * @param position to pick a move in, not changed
+     * @param moves scratch buffer, at least MoveGenerator.MAX_MOVES long
+     * @param weights scratch buffer, at least MoveGenerator.MAX_MOVES long
+     * @return packed move, or Moves.NONE if the position is not in the book
+     */
+    public int pickMove(Position position, int[] moves, int[] weights) {
+        int count = probe(position, moves, weights);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += weights[i];
+        }
+        if (total == 0) return count > 0 ? moves[0] : Moves.NONE;
+        long pick = ThreadLocalRandom.current().nextLong(total);
+        for (int i = 0; i < count; i++) {
+            pick -= weights[i];
+            if (pick < 0) return moves[i];
+        }
+        return moves[count - 1];
+    }
+
+    /**
+     * Binary searches for the first entry with a key, comparing keys as unsigned like Polyglot does.
+     * @return index of first entry with a key not below the given one, entryCount if none
+     */
+    private int findFirst(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(entries.getLong(middle * ENTRY_SIZE), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the legal move a Polyglot move stands for. Polyglot counts rows up from the first rank and
+     * writes castling as the king taking its own rook.
+     */
+    private int findLegalMove(Position position, short bookMove, int legalCount) {
+        int to = fromBookSquare(bookMove & 0x3F);
+        int from = fromBookSquare((bookMove >>> 6) & 0x3F);
+        int promotion = (bookMove >>> 12) & 0x7;
+        int fromCode = position.getPiece(from);
+        if (fromCode != Position.EMPTY && Position.kindOf(fromCode) == Position.KING
+                && position.getPiece(to) == Position.pieceCode(Position.ROOK, Position.isWhiteCode(fromCode))) {
+            to = to > from ? from + 2 : from - 2;
+        }
+        for (int i = 0; i < legalCount; i++) {
+            int move = legalMoves[i];
+            if (Moves.from(move) == from && Moves.to(move) == to && Moves.promotion(move) == promotion) return move;
+        }
+        return Moves.NONE;
+    }
+
+    private static int fromBookSquare(int bookSquare) {
+        return Position.square(Position.BOARD_SIZE - 1 - (bookSquare >>> 3), bookSquare & 0x7);
+    }
+
+    private static int toBookSquare(int square) {
+        return (Position.BOARD_SIZE - 1 - Position.rankOf(square)) * Position.BOARD_SIZE + Position.fileOf(square);
+    }
+
+    private static short toBookMove(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        if (Moves.hasFlag(move, Moves.CASTLE)) to = to > from ? from + 3 : from - 4;
+        return (short) (toBookSquare(to) | (toBookSquare(from) << 6) | (Moves.promotion(move) << 12));
+    }
+
+    /**
+     * Writes a book from the opening moves of every game in a PGN file. Each move's weight is how often it
+     * was played in its position, capped at the largest weight an entry holds.
+     * @param games to learn from
+     * @param maxPlies how many plies of each game to take
+     * @param path of book file to write
+     * @return number of entries written
+     * @throws IOException if the book cannot be written
+     */
+    public static int build(PgnReader games, int maxPlies, Path path) throws IOException {
+        long[][] keys = {new long[1024]};
+        int[][] bookMoves = {new int[1024]};
+        int[] size = {0};
+        games.readAll(new PgnListener() {
+            private int ply;
+
+            @Override
+            public void onGameStart(int gameIndex) {
+                ply = 0;
+            }
+
+            @Override
+            public void onMove(Position position, int move) {
+                if (ply++ >= maxPlies) return;
+                if (size[0] == keys[0].length) {
+                    keys[0] = Arrays.copyOf(keys[0], size[0] * 2);
+                    bookMoves[0] = Arrays.copyOf(bookMoves[0], size[0] * 2);
+                }
+                keys[0][size[0]] = PolyglotKey.hash(position);
+                bookMoves[0][size[0]] = Short.toUnsignedInt(toBookMove(move));
+                size[0]++;
+            }
+        });
+
+        Integer[] order = new Integer[size[0]];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byKey = Long.compareUnsigned(keys[0][a], keys[0][b]);
+            return byKey != 0 ? byKey : Integer.compare(bookMoves[0][a], bookMoves[0][b]);
+        });
+
+        ByteBuffer buffer = ByteBuffer.allocate(order.length * ENTRY_SIZE).order(ByteOrder.BIG_ENDIAN);
+        int entryCount = 0;
+        for (int i = 0; i < order.length; ) {
+            long key = keys[0][order[i]];
+            int bookMove = bookMoves[0][order[i]];
+            int weight = 0;
+            for (; i < order.length && keys[0][order[i]] == key && bookMoves[0][order[i]] == bookMove; i++) {
+                weight++;
+            }
+            buffer.putLong(key).putShort((short) bookMove).putShort((short) Math.min(weight, MAX_WEIGHT)).putInt(0);
+            entryCount++;
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+        return entryCount;
+    }
+}
@@ -0,0 +1,129 @@
+import java.nio.ByteBuffer;
+
+public final class PackedPosition {
+
+    // Layout, as four longs: the occupancy bitboard; the piece codes of the first 16 occupied squares in
+    // square order, 4 bits each, lowest first; the codes of the next 16; then the game state word of Position.
+    public static final int LONGS = 4;
+    public static final int BYTES = LONGS * Long.BYTES;
+
+    private static final int MAX_PIECES = 32;
+    private static final int PIECES_PER_LONG = 16;
+    private static final int CODE_BITS = 4;
+
+    private PackedPosition() {
+    }
+
+    /**
+     * Packs a position into four longs.
+     * @param position to pack, at most 32 pieces
+     * @param out array to write to
+     * @param offset index of the first long to write
+     */
+    public static void encode(Position position, long[] out, int offset) {
+        long occupancy = checkedOccupancy(position);
+        out[offset] = occupancy;
+        out[offset + 1] = packCodes(position, occupancy);
+        out[offset + 2] = packCodes(position, dropLowest(occupancy, PIECES_PER_LONG));
+        out[offset + 3] = position.getState();
+    }
+
+    /**
+     * Unpacks a position, as if its FEN had been loaded. The undo stack is left empty.
+     * @param in array to read from
+     * @param offset index of the first long to read
+     * @param position overwritten with the unpacked position
+     */
+    public static void decode(long[] in, int offset, Position position) {
+        decode(in[offset], in[offset + 1], in[offset + 2], in[offset + 3], position);
+    }
+
+    /**
+     * Writes a packed position at the buffer's position, in the buffer's byte order.
+     * @param position to write
+     * @param buffer with at least BYTES remaining
+     */
+    public static void write(Position position, ByteBuffer buffer) {
+        long occupancy = checkedOccupancy(position);
+        buffer.putLong(occupancy)
+                .putLong(packCodes(position, occupancy))
+                .putLong(packCodes(position, dropLowest(occupancy, PIECES_PER_LONG)))
+                .putLong(position.getState());
+    }
+
+    /**
+     * Reads a packed position at the buffer's position. The buffer must have the byte order it was written with.
+     * @param buffer with at least BYTES remaining
+     * @param position overwritten with the read position
+     */
+    public static void read(ByteBuffer buffer, Position position) {
+        decode(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong(), position);
+    }
+
+    /**
+     * Writes many positions back to back.
+     * @param positions to write
+     * @param offset index of the first position to write
+     * @param count number of positions to write
+     * @param buffer with at least count * BYTES remaining
+     */
+    public static void writeAll(Position[] positions, int offset, int count, ByteBuffer buffer) {
+        for (int i = offset; i < offset + count; i++) {
+            write(positions[i], buffer);
+        }
+    }
+
+    /**
+     * Reads as many positions as the buffer holds, up to a count, into positions owned by the caller.
+     * @param buffer to read from
+     * @param positions overwritten with the read positions
+     * @param offset index of the first position to overwrite
+     * @param count most positions to read
+     * @return number of positions read
+     */
+    public static int readAll(ByteBuffer buffer, Position[] positions, int offset, int count) {
+        int read = Math.min(count, buffer.remaining() / BYTES);
+        for (int i = offset; i < offset + read; i++) {
+            read(buffer, positions[i]);
+        }
+        return read;
+    }
+
+    private static long checkedOccupancy(Position position) {
+        long occupancy = position.getOccupancy();
+        if (Long.bitCount(occupancy) > MAX_PIECES) throw new IllegalArgumentException("Too many pieces to pack.");
+        return occupancy;
+    }
+
+    /**
+     * Packs the codes of the lowest 16 squares of a set, 4 bits each.
+     */
+    private static long packCodes(Position position, long squares) {
+        long codes = 0L;
+        for (int shift = 0; squares != 0 && shift < Long.SIZE; shift += CODE_BITS) {
+            codes |= (long) position.getPiece(Long.numberOfTrailingZeros(squares)) << shift;
+            squares &= squares - 1;
+        }
+        return codes;
+    }
+
+    private static long dropLowest(long squares, int count) {
+        for (int i = 0; i < count && squares != 0; i++) {
+            squares &= squares - 1;
+        }
+        return squares;
+    }
+
+    private static void decode(long occupancy, long first, long second, long state, Position position) {
+        position.clear();
+        long codes = first;
+        int index = 0;
+        for (long pieces = occupancy; pieces != 0; pieces &= pieces - 1) {
+            if (index == PIECES_PER_LONG) codes = second;
+            position.setPiece(Long.numberOfTrailingZeros(pieces), (int) (codes & 0xF));
+            codes >>>= CODE_BITS;
+            index++;
+        }
+        position.setState(state);
+    }
+}
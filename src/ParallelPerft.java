@@ -0,0 +1,161 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+public class ParallelPerft {
+
+    // Subtrees at least this deep are split into one task per move, shallower ones are counted on one thread.
+    private static final int SPLIT_DEPTH = 4;
+
+    private final ForkJoinPool pool;
+    private final PerftTable table;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    /**
+     * Constructor for a perft that counts root moves and deep subtrees on a fork-join pool.
+     * @param threadCount number of worker threads
+     * @param hashMegabytes size of a perft table shared by all workers, or 0 for none
+     */
+    public ParallelPerft(int threadCount, int hashMegabytes) {
+        pool = new ForkJoinPool(threadCount);
+        table = hashMegabytes > 0 ? new PerftTable(hashMegabytes) : null;
+    }
+
+    /**
+     * Counts leaf nodes of the legal move tree. The root position is copied and not changed.
+     * @param root position to count from
+     * @param depth in plies
+     * @return number of leaf nodes
+     */
+    public long perft(Position root, int depth) {
+        if (depth == 0) return 1;
+        return pool.invoke(new PerftTask(root, Moves.NONE, depth));
+    }
+
+    /**
+     * Counts leaf nodes below each legal root move in parallel.
+     * @param root position to count from
+     * @param depth in plies, at least 1
+     * @param moves buffer the root moves are written into
+     * @param counts buffer the node count of each root move is written into
+     * @return number of root moves
+     */
+    public int divide(Position root, int depth, int[] moves, long[] counts) {
+        Position position = new Position(root);
+        int count = MoveGenerator.generateLegalMoves(position, moves);
+        PerftTask[] tasks = new PerftTask[count];
+        for (int i = 0; i < count; i++) {
+            tasks[i] = new PerftTask(position, moves[i], depth - 1);
+        }
+        pool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+        for (int i = 0; i < count; i++) {
+            counts[i] = tasks[i].join();
+        }
+        return count;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Scratch state of one worker thread. A thread waiting for child tasks may run other tasks meanwhile, each
+     * nested one level deeper on its call stack, so it keeps a stack of positions, one per nested task.
+     */
+    private static class Worker {
+        Position[] positions = new Position[0];
+        int nesting;
+        final int[][] moveBuffers = MoveGenerator.newPlyBuffers(SPLIT_DEPTH);
+
+        Position push() {
+            if (nesting == positions.length) {
+                positions = Arrays.copyOf(positions, nesting + 8);
+                for (int i = nesting; i < positions.length; i++) {
+                    positions[i] = new Position();
+                }
+            }
+            return positions[nesting++];
+        }
+
+        void pop() {
+            nesting--;
+        }
+    }
+
+    private class PerftTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Position parent;
+        private final int move;
+        private final int depth;
+
+        /**
+         * @param parent position the move is played in, only read, and not changed until this task is done
+         * @param move to play, or Moves.NONE to count the parent itself
+         * @param depth remaining depth after the move
+         */
+        PerftTask(Position parent, int move, int depth) {
+            this.parent = parent;
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            Worker worker = workers.get();
+            Position position = worker.push();
+            try {
+                position.copyFrom(parent);
+                if (move != Moves.NONE) position.makeMove(move);
+                return depth < SPLIT_DEPTH ? count(position, depth, worker.moveBuffers) : split(position);
+            } finally {
+                worker.pop();
+            }
+        }
+
+        /**
+         * Counts each move's subtree in a task of its own. The children read this task's position, which stays
+         * unchanged until they have all finished.
+         */
+        private long split(Position position) {
+            long stored = table == null ? -1 : table.probe(position.getHash(), depth);
+            if (stored >= 0) return stored;
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int count = MoveGenerator.generateLegalMoves(position, moves);
+            PerftTask[] children = new PerftTask[count];
+            for (int i = 0; i < count; i++) {
+                children[i] = new PerftTask(position, moves[i], depth - 1);
+            }
+            invokeAll(children);
+            long nodes = 0;
+            for (PerftTask child : children) {
+                nodes += child.join();
+            }
+            if (table != null) table.store(position.getHash(), depth, nodes);
+            return nodes;
+        }
+    }
+
+    /**
+     * Counts a subtree on the current thread, consulting the shared table at every interior node.
+     * Moves at the last ply are only counted, not played out.
+     */
+    private long count(Position position, int depth, int[][] moveBuffers) {
+        if (depth == 0) return 1;
+        long stored = table == null || depth < 2 ? -1 : table.probe(position.getHash(), depth);
+        if (stored >= 0) return stored;
+        int[] moves = moveBuffers[depth - 1];
+        int count = MoveGenerator.generateLegalMoves(position, moves);
+        if (depth == 1) return count;
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            nodes += count(position, depth - 1, moveBuffers);
+            position.unmakeMove();
+        }
+        if (table != null) table.store(position.getHash(), depth, nodes);
+        return nodes;
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ParallelSearch {
+
+    private final TranspositionTable table;
+    private final Search mainSearch;
+    private final Search[] helpers;
+    private final Future<?>[] helperTasks;
+    private final ExecutorService helperPool;
+    private final Position snapshot = new Position();
+    private SearchListener listener;
+
+    /**
+     * Constructor for a Lazy SMP search: every thread searches the same root and they share one
+     * transposition table, so each thread profits from what the others have already searched.
+     * @param threadCount total number of searching threads, including the calling thread
+     * @param hashMegabytes size of the shared transposition table
+     */
+    public ParallelSearch(int threadCount, int hashMegabytes) {
+        if (threadCount < 1) throw new IllegalArgumentException("Thread count must be at least 1.");
+        table = new TranspositionTable(hashMegabytes);
+        mainSearch = new Search(table);
+        mainSearch.setListener(this::reportIteration);
+        helpers = new Search[threadCount - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Search(table);
+        }
+        helperTasks = new Future<?>[helpers.length];
+        helperPool = helpers.length == 0 ? null : Executors.newFixedThreadPool(helpers.length, (runnable) -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets a listener told about every iteration the main thread completes.
+     * @param listener to tell, or null for none
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Clears a previous stop request on every thread. Call it before handing search to another thread,
+     * so a stop that arrives before that thread gets going is not lost.
+     */
+    public void prepare() {
+        mainSearch.prepare();
+        for (Search helper : helpers) {
+            helper.prepare();
+        }
+    }
+
+    /**
+     * Searches a position on every thread until the main thread's depth, time or node budget runs out.
+     * Helper threads start one ply ahead on alternate threads so they fill the table for the main thread.
+     * Stop requests are only cleared by prepare.
+     * @param root position to search, not changed
+     * @param maxDepth deepest iteration to run
+     * @param timeLimitMillis time budget in milliseconds, or 0 for none
+     * @param maxNodes node budget of the main thread, or 0 for none
+     * @return result of the main thread's deepest completed iteration, with nodes summed over all threads
+     */
+    public SearchResult search(Position root, int maxDepth, long timeLimitMillis, long maxNodes) {
+        snapshot.copyFrom(root);
+        for (int i = 0; i < helpers.length; i++) {
+            Search helper = helpers[i];
+            int firstDepth = 1 + (i + 1) % 2;
+            helperTasks[i] = helperPool.submit(() -> helper.search(snapshot, firstDepth, Search.MAX_PLY, 0, 0));
+        }
+        SearchResult result = mainSearch.search(snapshot, maxDepth, timeLimitMillis, maxNodes);
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+        awaitHelpers();
+        return withTotalNodes(result);
+    }
+
+    /**
+     * Waits for every helper to return, so none is still searching when the next search reuses it.
+     */
+    private void awaitHelpers() {
+        for (Future<?> task : helperTasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed.", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Asks every thread to stop as soon as possible.
+     */
+    public void stop() {
+        mainSearch.stop();
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+    }
+
+    /**
+     * Removes every transposition table entry and what the searches learned about move ordering,
+     * for starting a new game.
+     */
+    public void clear() {
+        table.clear();
+        mainSearch.clearHistory();
+        for (Search helper : helpers) {
+            helper.clearHistory();
+        }
+    }
+
+    /**
+     * Stops the helper threads for good.
+     */
+    public void shutdown() {
+        stop();
+        if (helperPool != null) helperPool.shutdownNow();
+    }
+
+    public int getThreadCount() {
+        return helpers.length + 1;
+    }
+
+    private void reportIteration(SearchResult result) {
+        if (listener != null) listener.onIteration(withTotalNodes(result));
+    }
+
+    private SearchResult withTotalNodes(SearchResult result) {
+        long nodes = result.getNodes();
+        for (Search helper : helpers) {
+            nodes += helper.getNodes();
+        }
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes,
+                result.getElapsedMillis(), result.getPrincipalVariation());
+    }
+}
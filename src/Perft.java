@@ -0,0 +1,226 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class Perft {
+
+    /**
+     * Standard perft positions with their known node counts, starting at depth 1.
+     */
+    private static final String[][] SUITE = {
+            {"start position", GameManager.START_FEN,
+                    "20 400 8902 197281 4865609 119060324"},
+            {"kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    "48 2039 97862 4085603 193690690"},
+            {"position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    "14 191 2812 43238 674624 11030083"},
+            {"position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    "6 264 9467 422333 15833292"},
+            {"position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    "44 1486 62379 2103487 89941194"},
+            {"position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    "46 2079 89890 3894594 164075551"},
+            // Castling rights the pieces do not match: the white king is off its square, the black h-rook missing.
+            {"bad castling", "r3k3/8/8/8/8/8/8/R5KR w KQkq - 0 1",
+                    "23 297 7385 107731 2733890"}
+    };
+
+    private static final int DEFAULT_SUITE_DEPTH = 4;
+
+    /**
+     * Counts leaf nodes of the legal move tree. The position is walked in place and left as it was.
+     * @param position to count from
+     * @param depth in plies
+     * @return number of leaf nodes
+     */
+    public static long perft(Position position, int depth) {
+        if (depth == 0) return 1;
+        return perft(position, depth, MoveGenerator.newPlyBuffers(depth));
+    }
+
+    /**
+     * Counts leaf nodes using move buffers allocated once for the whole tree, so the count itself allocates nothing.
+     * Moves at the last ply are legal by construction, so they are only counted, not played out.
+     * @param moveBuffers one move buffer per remaining ply
+     */
+    private static long perft(Position position, int depth, int[][] moveBuffers) {
+        int[] moves = moveBuffers[depth - 1];
+        int count = MoveGenerator.generateLegalMoves(position, moves);
+        if (depth == 1) return count;
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            nodes += perft(position, depth - 1, moveBuffers);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts leaf nodes below each root move and prints them, followed by the total and nodes per second.
+     * @param position to count from
+     * @param depth in plies, at least 1
+     * @return total number of leaf nodes
+     */
+    public static long divide(Position position, int depth) {
+        return divide(position, depth, null);
+    }
+
+    /**
+     * Counts leaf nodes below each root move and prints them, followed by the total and nodes per second.
+     * @param position to count from
+     * @param depth in plies, at least 1
+     * @param parallelPerft counts the root moves in parallel, or null to count them on this thread
+     * @return total number of leaf nodes
+     */
+    public static long divide(Position position, int depth, ParallelPerft parallelPerft) {
+        long start = System.nanoTime();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        long[] counts = new long[MoveGenerator.MAX_MOVES];
+        int count;
+        if (parallelPerft != null) {
+            count = parallelPerft.divide(position, depth, moves, counts);
+        } else {
+            count = MoveGenerator.generateLegalMoves(position, moves);
+            for (int i = 0; i < count; i++) {
+                position.makeMove(moves[i]);
+                counts[i] = perft(position, depth - 1);
+                position.unmakeMove();
+            }
+        }
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            System.out.println(Moves.toUCI(moves[i]) + ": " + counts[i]);
+            total += counts[i];
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println();
+        System.out.println("Moves: " + count);
+        System.out.println("Nodes: " + total);
+        System.out.printf("Time: %.3f s, %d nodes/s%n", elapsed / 1e9, nodesPerSecond(total, elapsed));
+        return total;
+    }
+
+    /**
+     * Runs every suite position up to a depth and checks node counts against the known values.
+     * @param maxDepth deepest depth to run, positions with fewer known counts stop early
+     * @param parallelPerft counts each position in parallel, or null to count on this thread
+     * @return true if every count matched, false if not
+     */
+    public static boolean runSuite(int maxDepth, ParallelPerft parallelPerft) {
+        GameManager gm = new GameManager(false);
+        boolean isPassing = true;
+        long totalNodes = 0;
+        long totalTime = 0;
+        for (String[] entry : SUITE) {
+            gm.setFENState(entry[1]);
+            String[] expected = entry[2].split(" ");
+            for (int depth = 1; depth <= Math.min(maxDepth, expected.length); depth++) {
+                long start = System.nanoTime();
+                long nodes = parallelPerft != null ? parallelPerft.perft(gm.getPosition(), depth)
+                        : perft(gm.getPosition(), depth);
+                long elapsed = System.nanoTime() - start;
+                boolean isMatch = nodes == Long.parseLong(expected[depth - 1]);
+                isPassing &= isMatch;
+                totalNodes += nodes;
+                totalTime += elapsed;
+                System.out.printf("%-16s depth %d: %12d %s (expected %s) %12d nodes/s%n", entry[0], depth, nodes,
+                        isMatch ? "OK  " : "FAIL", expected[depth - 1], nodesPerSecond(nodes, elapsed));
+            }
+        }
+        System.out.printf("%s: %d nodes in %.3f s, %d nodes/s%n", isPassing ? "PASSED" : "FAILED", totalNodes,
+                totalTime / 1e9, nodesPerSecond(totalNodes, totalTime));
+        return isPassing;
+    }
+
+    /**
+     * Checks every record of a perft EPD file, where each position is followed by operations such as
+     * {@code ;D1 20 ;D2 400}, streaming the file so any number of positions fits in memory.
+     * @param path of EPD file
+     * @param maxDepth deepest depth to run, deeper operations are skipped
+     * @return true if every count matched, false if not
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean runEPD(Path path, int maxDepth) throws IOException {
+        long[] totals = new long[2];
+        int[][] moveBuffers = MoveGenerator.newPlyBuffers(Math.max(maxDepth, 1));
+        long start = System.nanoTime();
+        long records = new EpdReader().read(path, (position, operations, lineNumber) -> {
+            int length = operations.length();
+            for (int i = 0; i < length; i++) {
+                if (operations.charAt(i) != 'D' || i + 1 >= length || !Character.isDigit(operations.charAt(i + 1))) {
+                    continue;
+                }
+                int depth = 0;
+                for (i++; i < length && Character.isDigit(operations.charAt(i)); i++) {
+                    depth = depth * 10 + operations.charAt(i) - '0';
+                }
+                while (i < length && operations.charAt(i) == ' ') i++;
+                long expected = 0;
+                for (; i < length && Character.isDigit(operations.charAt(i)); i++) {
+                    expected = expected * 10 + operations.charAt(i) - '0';
+                }
+                if (depth < 1 || depth > maxDepth) continue;
+                long nodes = perft(position, depth, moveBuffers);
+                totals[0] += nodes;
+                if (nodes != expected) {
+                    totals[1]++;
+                    System.out.printf("line %d depth %d: %d FAIL (expected %d)%n", lineNumber, depth, nodes, expected);
+                }
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%s: %d positions, %d nodes in %.3f s, %d nodes/s%n", totals[1] == 0 ? "PASSED" : "FAILED",
+                records, totals[0], elapsed / 1e9, nodesPerSecond(totals[0], elapsed));
+        return totals[1] == 0;
+    }
+
+    private static long nodesPerSecond(long nodes, long nanos) {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+
+    /**
+     * Runs perft without a display.
+     * Usage: {@code Perft <depth> [FEN]} prints divide output for one position (default is the start position),
+     * {@code Perft suite [max depth] [threads]} checks the standard positions and exits with status 1 on a mismatch,
+     * {@code Perft parallel <threads> <hash MB> <depth> [FEN]} prints divide output counted on a fork-join pool,
+     * with a shared perft hash unless its size is 0, {@code Perft epd <file> [max depth]} checks a perft EPD file.
+     * @param args command line arguments
+     * @throws IOException if an EPD file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: Perft <depth> [FEN] | Perft suite [max depth] [threads]"
+                    + " | Perft parallel <threads> <hash MB> <depth> [FEN] | Perft epd <file> [max depth]");
+            return;
+        }
+        if (args[0].equals("suite")) {
+            int maxDepth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SUITE_DEPTH;
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+            // The suite checks the move generator, so parallel runs go without the perft hash.
+            ParallelPerft parallelPerft = threads > 1 ? new ParallelPerft(threads, 0) : null;
+            boolean isPassing = runSuite(maxDepth, parallelPerft);
+            if (parallelPerft != null) parallelPerft.shutdown();
+            if (!isPassing) System.exit(1);
+            return;
+        }
+        if (args[0].equals("epd")) {
+            int maxDepth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SUITE_DEPTH;
+            if (!runEPD(Path.of(args[1]), maxDepth)) System.exit(1);
+            return;
+        }
+        ParallelPerft parallelPerft = null;
+        int depthIndex = 0;
+        if (args[0].equals("parallel")) {
+            parallelPerft = new ParallelPerft(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+            depthIndex = 3;
+        }
+        int depth = Integer.parseInt(args[depthIndex]);
+        String fen = args.length > depthIndex + 1
+                ? String.join(" ", Arrays.copyOfRange(args, depthIndex + 1, args.length)) : GameManager.START_FEN;
+        GameManager gm = new GameManager(false);
+        gm.setFENState(fen);
+        divide(gm.getPosition(), depth, parallelPerft);
+        if (parallelPerft != null) parallelPerft.shutdown();
+    }
+}
@@ -0,0 +1,40 @@
+public class PerftTable {
+
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+    // Same layout as the transposition table: key XORed with data, then data, so threads share it without locks.
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     * Constructor for a table of subtree node counts that can be shared by several threads.
+     * @param megabytes size of the table, rounded down to a power of two number of entries
+     */
+    public PerftTable(int megabytes) {
+        long count = Long.highestOneBit(Math.max(1L, (long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY));
+        entries = new long[(int) Math.min(count, 1 << 29) * 2];
+        mask = entries.length / 2 - 1;
+    }
+
+    /**
+     * Looks up the node count of a position searched to a depth.
+     * @param hash Zobrist key of position
+     * @param depth remaining depth
+     * @return node count, or -1 if not stored
+     */
+    public long probe(long hash, int depth) {
+        int index = ((int) hash & mask) << 1;
+        long data = entries[index + 1];
+        if ((entries[index] ^ data) != hash || (data & DEPTH_MASK) != depth) return -1;
+        return data >>> DEPTH_BITS;
+    }
+
+    public void store(long hash, int depth, long nodes) {
+        int index = ((int) hash & mask) << 1;
+        long data = (nodes << DEPTH_BITS) | depth;
+        entries[index] = hash ^ data;
+        entries[index + 1] = data;
+    }
+}
@@ -0,0 +1,32 @@
+public interface PgnListener {
+    /**
+     * Used by the PGN reader when it starts on a game.
+     * @param gameIndex of game in the file, starting at 0
+     */
+    public default void onGameStart(int gameIndex) {
+    }
+
+    /**
+     * Used by the PGN reader for every tag pair of a game. Both are reused for the next tag, so copy them to keep them.
+     * @param name of tag, such as "White"
+     * @param value of tag, without quotes or escapes
+     */
+    public default void onTag(CharSequence name, CharSequence value) {
+    }
+
+    /**
+     * Used by the PGN reader for every move of a game, before the move is played.
+     * @param position the move is played in
+     * @param move packed legal move
+     */
+    public default void onMove(Position position, int move) {
+    }
+
+    /**
+     * Used by the PGN reader after the last move of a game.
+     * @param position after the last move
+     * @param result such as "1-0" or "*", empty if the game had none
+     */
+    public default void onGameEnd(Position position, CharSequence result) {
+    }
+}
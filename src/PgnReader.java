@@ -0,0 +1,332 @@
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class PgnReader {
+
+    // Files are mapped in segments of 1 GB, since one mapping cannot be larger than 2 GB.
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    private static final int INITIAL_GAME_CAPACITY = 1024;
+    private static final int INITIAL_TOKEN_CAPACITY = 256;
+
+    private final MappedByteBuffer[] segments;
+    private final long size;
+    private long[] gameOffsets = new long[INITIAL_GAME_CAPACITY];
+    private int gameCount;
+
+    private final Position position = new Position();
+    private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
+    private char[] token = new char[INITIAL_TOKEN_CAPACITY];
+    private CharBuffer tokenView = CharBuffer.wrap(token);
+    private char[] tagName = new char[INITIAL_TOKEN_CAPACITY];
+    private CharBuffer tagNameView = CharBuffer.wrap(tagName);
+
+    /**
+     * Constructor for a reader over a PGN file. The file is memory-mapped and indexed once, after which any
+     * game can be replayed directly by its index. A new game is taken to start at every tag line that follows
+     * movetext, so games without tags are only found at the start of the file.
+     * @param path of PGN file
+     * @throws IOException if the file cannot be read
+     */
+    public PgnReader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, SEGMENT_MASK + 1));
+            }
+        }
+        buildIndex();
+    }
+
+    public int getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Gets where a game starts in the file.
+     * @param gameIndex of game, starting at 0
+     * @return byte offset of the game's first tag
+     */
+    public long getGameOffset(int gameIndex) {
+        return gameOffsets[gameIndex];
+    }
+
+    /**
+     * Replays every game in the file in order.
+     * @param listener told about every tag, move and game end
+     * @return number of games replayed to the end, games with an illegal move or a malformed FEN tag are skipped
+     */
+    public int readAll(PgnListener listener) {
+        int replayed = 0;
+        for (int i = 0; i < gameCount; i++) {
+            if (replay(i, listener)) replayed++;
+        }
+        return replayed;
+    }
+
+    /**
+     * Replays one game, resolving each SAN move against the legal moves of the position it is played in.
+     * Comments, variations and annotations are skipped. A FEN tag sets the starting position.
+     * @param gameIndex of game, starting at 0
+     * @param listener told about every tag, move and game end
+     * @return true if every move was legal, false if the game stopped at an illegal or ambiguous move or at a
+     * malformed FEN tag
+     */
+    public boolean replay(int gameIndex, PgnListener listener) {
+        long offset = gameOffsets[gameIndex];
+        long end = gameIndex + 1 < gameCount ? gameOffsets[gameIndex + 1] : size;
+        Fen.parse(GameManager.START_FEN, 0, GameManager.START_FEN.length(), position);
+        listener.onGameStart(gameIndex);
+
+        offset = skipWhitespace(offset, end);
+        try {
+            while (offset < end && byteAt(offset) == '[') {
+                offset = readTag(offset + 1, end, listener);
+                offset = skipWhitespace(offset, end);
+            }
+        } catch (IllegalArgumentException e) {
+            // A game that cannot be set up is unreadable, like one with an illegal move; the rest of the file is not.
+            return false;
+        }
+
+        int resultLength = 0;
+        while (offset < end) {
+            byte b = byteAt(offset);
+            if (isWhitespace(b) || b == '.' || b == ')' || b == '}') {
+                offset++;
+            } else if (b == '{') {
+                offset = skipPast(offset + 1, end, '}');
+            } else if (b == ';' || (b == '%' && (offset == 0 || byteAt(offset - 1) == '\n'))) {
+                offset = skipPast(offset + 1, end, '\n');
+            } else if (b == '(') {
+                offset = skipVariation(offset + 1, end);
+            } else if (b == '$') {
+                offset = skipToken(offset + 1, end);
+            } else {
+                int length = 0;
+                boolean isNumber = true;
+                for (; offset < end; offset++) {
+                    byte c = byteAt(offset);
+                    if (isWhitespace(c) || c == '{' || c == '(' || c == ')' || c == ';' || c == '$') break;
+                    // A move number runs into the move when written like "12.e4".
+                    if (c == '.' && isNumber) break;
+                    isNumber &= c >= '0' && c <= '9';
+                    length = append(length, c);
+                }
+                if (isNumber) continue;
+                if (isResult(length)) {
+                    resultLength = length;
+                    break;
+                }
+                tokenView.clear().limit(length);
+                int move = San.parse(position, tokenView, moveBuffer);
+                if (move == Moves.NONE) return false;
+                listener.onMove(position, move);
+                position.makeMove(move);
+            }
+        }
+        tokenView.clear().limit(resultLength);
+        listener.onGameEnd(position, tokenView);
+        return true;
+    }
+
+    /**
+     * Reads one tag pair such as [White "Carlsen, Magnus"], passing its name and value to the listener.
+     * @param offset just after the '['
+     * @return offset just after the ']'
+     */
+    private long readTag(long offset, long end, PgnListener listener) {
+        int nameLength = 0;
+        for (; offset < end && !isWhitespace(byteAt(offset)) && byteAt(offset) != '"'; offset++) {
+            if (nameLength == tagName.length) {
+                tagName = grow(tagName);
+                tagNameView = CharBuffer.wrap(tagName);
+            }
+            tagName[nameLength++] = (char) (byteAt(offset) & 0xFF);
+        }
+        offset = skipPast(offset, end, '"');
+        int valueLength = 0;
+        for (; offset < end && byteAt(offset) != '"'; offset++) {
+            byte b = byteAt(offset);
+            if (b == '\\' && offset + 1 < end) b = byteAt(++offset);
+            if ((b & 0x80) == 0) {
+                valueLength = append(valueLength, b);
+                continue;
+            }
+            // Multi-byte UTF-8, decoded here so names come out right without a per-tag decoder.
+            int extra = (b & 0xE0) == 0xC0 ? 1 : (b & 0xF0) == 0xE0 ? 2 : 3;
+            int codePoint = b & (0x3F >> extra);
+            for (int i = 0; i < extra && offset + 1 < end; i++) {
+                codePoint = (codePoint << 6) | (byteAt(++offset) & 0x3F);
+            }
+            if (Character.isBmpCodePoint(codePoint)) {
+                valueLength = appendChar(valueLength, (char) codePoint);
+            } else {
+                valueLength = appendChar(valueLength, Character.highSurrogate(codePoint));
+                valueLength = appendChar(valueLength, Character.lowSurrogate(codePoint));
+            }
+        }
+        tagNameView.clear().limit(nameLength);
+        tokenView.clear().limit(valueLength);
+        if (nameLength == 3 && tagName[0] == 'F' && tagName[1] == 'E' && tagName[2] == 'N') {
+            Fen.parse(tokenView, 0, valueLength, position);
+        }
+        listener.onTag(tagNameView, tokenView);
+        return skipPast(offset, end, ']');
+    }
+
+    /**
+     * Finds the start of every game with one pass over the file.
+     */
+    private void buildIndex() {
+        boolean isInMovetext = true;
+        long offset = 0;
+        while (offset < size) {
+            byte b = byteAt(offset);
+            if (b == '[') {
+                if (isInMovetext) addGame(offset);
+                isInMovetext = false;
+            } else if (!isWhitespace(b)) {
+                if (gameCount == 0) addGame(offset);
+                isInMovetext = true;
+            }
+            offset = skipPast(offset, size, '\n');
+        }
+    }
+
+    private void addGame(long offset) {
+        if (gameCount == gameOffsets.length) {
+            long[] grown = new long[gameOffsets.length * 2];
+            System.arraycopy(gameOffsets, 0, grown, 0, gameCount);
+            gameOffsets = grown;
+        }
+        gameOffsets[gameCount++] = offset;
+    }
+
+    private boolean isResult(int length) {
+        return (length == 1 && token[0] == '*')
+                || (length == 3 && token[1] == '-' && (token[0] == '1' || token[2] == '1'))
+                || (length == 7 && token[1] == '/');
+    }
+
+    private long skipVariation(long offset, long end) {
+        int depth = 1;
+        while (offset < end && depth > 0) {
+            byte b = byteAt(offset++);
+            if (b == '(') {
+                depth++;
+            } else if (b == ')') {
+                depth--;
+            } else if (b == '{') {
+                offset = skipPast(offset, end, '}');
+            }
+        }
+        return offset;
+    }
+
+    private long skipToken(long offset, long end) {
+        while (offset < end && !isWhitespace(byteAt(offset))) offset++;
+        return offset;
+    }
+
+    private long skipWhitespace(long offset, long end) {
+        while (offset < end && isWhitespace(byteAt(offset))) offset++;
+        return offset;
+    }
+
+    /**
+     * Skips to just after the next occurrence of a character, or to the end.
+     */
+    private long skipPast(long offset, long end, char c) {
+        while (offset < end && byteAt(offset) != c) offset++;
+        return Math.min(offset + 1, end);
+    }
+
+    private int append(int length, byte b) {
+        return appendChar(length, (char) (b & 0xFF));
+    }
+
+    private int appendChar(int length, char c) {
+        if (length == token.length) {
+            token = grow(token);
+            tokenView = CharBuffer.wrap(token);
+        }
+        token[length] = c;
+        return length + 1;
+    }
+
+    private byte byteAt(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].get((int) (offset & SEGMENT_MASK));
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static char[] grow(char[] buffer) {
+        char[] grown = new char[buffer.length * 2];
+        System.arraycopy(buffer, 0, grown, 0, buffer.length);
+        return grown;
+    }
+
+    /**
+     * Replays a PGN file without a display.
+     * Usage: {@code PgnReader <file>} replays every game and prints games and moves per second,
+     * {@code PgnReader <file> <game index>} prints the tags and moves of one game.
+     * @param args command line arguments
+     * @throws IOException if the file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: PgnReader <file> [game index]");
+            return;
+        }
+        long start = System.nanoTime();
+        PgnReader reader = new PgnReader(Path.of(args[0]));
+        long indexed = System.nanoTime();
+        if (args.length > 1) {
+            StringBuilder out = new StringBuilder();
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            boolean isLegal = reader.replay(Integer.parseInt(args[1]), new PgnListener() {
+                @Override
+                public void onTag(CharSequence name, CharSequence value) {
+                    System.out.println("[" + name + " \"" + value + "\"]");
+                }
+
+                @Override
+                public void onMove(Position position, int move) {
+                    if (position.isWhiteToPlay()) out.append(position.getFullMoves()).append(". ");
+                    San.append(position, move, moves, out).append(' ');
+                }
+
+                @Override
+                public void onGameEnd(Position position, CharSequence result) {
+                    System.out.println();
+                    System.out.println(out.append(result));
+                    System.out.println(Fen.toFEN(position));
+                }
+            });
+            if (!isLegal) System.out.println("Stopped at an illegal move or malformed FEN tag after: " + out);
+            return;
+        }
+        long[] moveCount = new long[1];
+        int replayed = reader.readAll(new PgnListener() {
+            @Override
+            public void onMove(Position position, int move) {
+                moveCount[0]++;
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%d games (%d replayed, %d unreadable), %d moves%n", reader.getGameCount(), replayed,
+                reader.getGameCount() - replayed, moveCount[0]);
+        System.out.printf("Index: %.3f s, total: %.3f s, %d games/min, %d moves/s%n", (indexed - start) / 1e9,
+                elapsed / 1e9, reader.getGameCount() * 60_000_000_000L / Math.max(1, elapsed),
+                moveCount[0] * 1_000_000_000L / Math.max(1, elapsed));
+    }
+}
@@ -1,22 +1,33 @@
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import java.util.ArrayList;
+public abstract class Piece {
 
-public abstract class Piece extends ImageView {
+    // One shared, immutable piece per piece code. Pieces hold no board state, so every square showing
+    // the same piece can use the same instance.
+    private static final Piece[] PIECES = {
+            new Pawn(true), new Knight(true), new Bishop(true), new Rook(true), new Queen(true), new King(true),
+            new Pawn(false), new Knight(false), new Bishop(false), new Rook(false), new Queen(false), new King(false)
+    };
 
+    private final int kind;
+    private final int code;
     private final boolean isWhite;
     private final String name;
-    private final ImageView graphic;
-    private int materialScore;
+    private final int materialScore;
 
-    public Piece(boolean isWhite, String name, int materialScore) {
+    Piece(int kind, boolean isWhite, String name, int materialScore) {
+        this.kind = kind;
+        this.code = Position.pieceCode(kind, isWhite);
         this.isWhite = isWhite;
         this.name = name;
         this.materialScore = materialScore;
-        Image image = new Image("images/pieces/" + (isWhite ? "white" : "black") + "-" + name + ".png");
-        ImageView imageView = new ImageView();
-        imageView.setImage(image);
-        this.graphic = imageView;
+    }
+
+    /**
+     * Gets the shared piece of a position piece code.
+     * @param code of piece
+     * @return shared piece, or null if code is EMPTY
+     */
+    public static Piece fromCode(int code) {
+        return code == Position.EMPTY ? null : PIECES[code];
     }
 
     /**
@@ -31,14 +42,6 @@ public abstract class Piece extends ImageView {
      */
     public abstract char getUnicode();
 
-    /**
-     * Returns the pieces display graphic.
-     * @return graphic as Image
-     */
-    public ImageView getGraphic() {
-        return graphic;
-    }
-
     /**
      * Gets if piece is white.
      * @return true if white, false if black
@@ -55,6 +58,22 @@ public abstract class Piece extends ImageView {
         return name;
     }
 
+    /**
+     * Gets the kind of this piece, the same for both colors.
+     * @return Position.PAWN through Position.KING
+     */
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the position piece code of this piece.
+     * @return piece code as used by Position
+     */
+    public int getCode() {
+        return code;
+    }
+
     /**
      * Gets material score of piece.
      * @return material score as int
@@ -65,10 +84,12 @@ public abstract class Piece extends ImageView {
 
     /**
      * Generates all possible moves from this piece's perspective (some moves may be pruned later).
-     * Doesn't evaluate other pieces positions or special rules.
-     * @param file File the current piece is on, given as 0-based index.
-     * @param rank Rank the current piece is on, given as 0-based index.
-     * @return 2D integer array. Each inner array contains [file, rank] as 0-based indices.
+     * Doesn't evaluate whether the move leaves its own king in check.
+     * @param square the current piece is on
+     * @param position the current piece is in
+     * @param moves buffer owned by the caller to write packed moves into
+     * @param count number of moves already in the buffer
+     * @return number of moves in the buffer afterwards
      */
-    public abstract ArrayList<Move> getBasicMoves(int file, int rank, BoardMoveValidator validator);
+    public abstract int getBasicMoves(int square, Position position, int[] moves, int count);
 }
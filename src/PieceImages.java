@@ -0,0 +1,26 @@
+import javafx.scene.image.Image;
+
+public final class PieceImages {
+
+    // Decoded once per piece code for the whole process, the first time that piece is shown.
+    private static final Image[] IMAGES = new Image[Position.PIECE_CODE_COUNT];
+
+    private PieceImages() {
+    }
+
+    /**
+     * Gets the image of a piece, decoding it on first use. Only called from the JavaFX application thread.
+     * @param piece to get image of
+     * @return shared image, or null if piece is null
+     */
+    public static Image getImage(Piece piece) {
+        if (piece == null) return null;
+        int code = piece.getCode();
+        Image image = IMAGES[code];
+        if (image == null) {
+            image = new Image("images/pieces/" + (piece.isWhite() ? "white" : "black") + "-" + piece.getName() + ".png");
+            IMAGES[code] = image;
+        }
+        return image;
+    }
+}
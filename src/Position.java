@@ -0,0 +1,667 @@
+import java.util.Arrays;
+
+public class Position {
+
+    public static final int BOARD_SIZE = 8;
+    public static final int SQUARE_COUNT = BOARD_SIZE * BOARD_SIZE;
+    public static final int NO_SQUARE = -1;
+
+    // Piece kinds, a piece code is its kind offset by PIECE_KIND_COUNT when black.
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+    public static final int PIECE_KIND_COUNT = 6;
+    public static final int PIECE_CODE_COUNT = 2 * PIECE_KIND_COUNT;
+    public static final int EMPTY = -1;
+
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    private static final String FEN_PIECES = "PNBRQKpnbrqk";
+
+    // Game state word, everything but the pieces in one long: bit 0 set when black is to play, then castling
+    // rights, en passant square + 1, halfmove clock and fullmove number.
+    public static final int STATE_CASTLING_SHIFT = 1;
+    public static final int STATE_EN_PASSANT_SHIFT = 5;
+    public static final int STATE_HALF_MOVES_SHIFT = 12;
+    public static final int STATE_FULL_MOVES_SHIFT = 28;
+    private static final long BLACK_TO_PLAY = 1L;
+    private static final long EN_PASSANT_MASK = 0x7F;
+    private static final long HALF_MOVES_MASK = 0xFFFF;
+    private static final long FULL_MOVES_MASK = 0xFFFFFFFFL;
+    private static final long INITIAL_STATE = 1L << STATE_FULL_MOVES_SHIFT;
+
+    // Undo records pack the move and the captured piece + 1, the state word before the move is kept beside it.
+    private static final int INITIAL_UNDO_CAPACITY = 256;
+    private static final int UNDO_MOVE_SHIFT = 4;
+
+    // Counts of earlier positions by the low bits of their hash, so most positions are known not to repeat
+    // without looking through the history.
+    private static final int REPETITION_FILTER_SIZE = 1 << 10;
+
+    // Castling rights kept when a piece moves from or to each square.
+    private static final int[] CASTLING_KEPT = new int[SQUARE_COUNT];
+
+    static {
+        for (int i = 0; i < SQUARE_COUNT; i++) {
+            CASTLING_KEPT[i] = ALL_CASTLING & ~castlingRightsLostAt(i);
+        }
+    }
+
+    private final long[] pieceBoards = new long[PIECE_CODE_COUNT];
+    private long whiteOccupancy;
+    private long blackOccupancy;
+    private long state;
+    private long hash;
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
+    private int whiteMaterial;
+    private int blackMaterial;
+    private int[] undoStack = new int[INITIAL_UNDO_CAPACITY];
+    private long[] stateHistory = new long[INITIAL_UNDO_CAPACITY];
+    private long[] hashHistory = new long[INITIAL_UNDO_CAPACITY];
+    private final char[] repetitionFilter = new char[REPETITION_FILTER_SIZE];
+    private int undoCount;
+    // Hashes of the positions before this one. A copy inherits those since the last capture or pawn move
+    // without their undo records, so there can be more of them than undo records.
+    private int historyCount;
+
+    /**
+     * Constructor for an empty position with white to play.
+     */
+    public Position() {
+        clear();
+    }
+
+    /**
+     * Copy constructor, copies every bitboard and game state of another position.
+     * @param other position to copy
+     */
+    public Position(Position other) {
+        copyFrom(other);
+    }
+
+    /**
+     * Overwrites this position with the state of another position. The undo stack is not copied,
+     * so the copy starts with no moves to unmake, but the positions since the last capture or pawn move
+     * are, so the copy still sees repetitions of positions played before it.
+     * @param other position to copy
+     */
+    public void copyFrom(Position other) {
+        System.arraycopy(other.pieceBoards, 0, pieceBoards, 0, PIECE_CODE_COUNT);
+        whiteOccupancy = other.whiteOccupancy;
+        blackOccupancy = other.blackOccupancy;
+        state = other.state;
+        hash = other.hash;
+        middlegameScore = other.middlegameScore;
+        endgameScore = other.endgameScore;
+        phase = other.phase;
+        whiteMaterial = other.whiteMaterial;
+        blackMaterial = other.blackMaterial;
+        clearHistory();
+        int inherited = Math.min(other.historyCount, getHalfMoves());
+        if (inherited > hashHistory.length) hashHistory = new long[Integer.highestOneBit(inherited) * 2];
+        System.arraycopy(other.hashHistory, other.historyCount - inherited, hashHistory, 0, inherited);
+        for (int i = 0; i < inherited; i++) {
+            repetitionFilter[(int) hashHistory[i] & (REPETITION_FILTER_SIZE - 1)]++;
+        }
+        historyCount = inherited;
+    }
+
+    /**
+     * Removes all pieces and resets game state to white to play, no castling and no en passant.
+     */
+    public void clear() {
+        for (int i = 0; i < PIECE_CODE_COUNT; i++) {
+            pieceBoards[i] = 0L;
+        }
+        whiteOccupancy = 0L;
+        blackOccupancy = 0L;
+        state = INITIAL_STATE;
+        hash = 0L;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        whiteMaterial = 0;
+        blackMaterial = 0;
+        clearHistory();
+    }
+
+    /**
+     * Drops every undo record and earlier position, taking them out of the repetition filter.
+     */
+    private void clearHistory() {
+        for (int i = 0; i < historyCount; i++) {
+            repetitionFilter[(int) hashHistory[i] & (REPETITION_FILTER_SIZE - 1)]--;
+        }
+        undoCount = 0;
+        historyCount = 0;
+    }
+
+    /**
+     * Converts a rank and file to a square index. Rank 0 is the eighth rank, matching the board's tile indices.
+     * @param rank of square
+     * @param file of square
+     * @return square index from 0 to 63
+     */
+    public static int square(int rank, int file) {
+        return rank * BOARD_SIZE + file;
+    }
+
+    /**
+     * Gets the rank of a square index.
+     * @param square index
+     * @return rank as 0-based index
+     */
+    public static int rankOf(int square) {
+        return square >>> 3;
+    }
+
+    /**
+     * Gets the file of a square index.
+     * @param square index
+     * @return file as 0-based index
+     */
+    public static int fileOf(int square) {
+        return square & 7;
+    }
+
+    /**
+     * Gets the castling rights that are lost when a piece moves from or to a square.
+     * @param square moved from or to
+     * @return castling rights lost as a bitmask
+     */
+    public static int castlingRightsLostAt(int square) {
+        switch (square) {
+            case 0: return BLACK_QUEEN_SIDE;
+            case 4: return BLACK_KING_SIDE | BLACK_QUEEN_SIDE;
+            case 7: return BLACK_KING_SIDE;
+            case 56: return WHITE_QUEEN_SIDE;
+            case 60: return WHITE_KING_SIDE | WHITE_QUEEN_SIDE;
+            case 63: return WHITE_KING_SIDE;
+            default: return 0;
+        }
+    }
+
+    /**
+     * Gets the piece code of a piece kind and color.
+     * @param kind of piece
+     * @param isWhite color of piece
+     * @return piece code
+     */
+    public static int pieceCode(int kind, boolean isWhite) {
+        return isWhite ? kind : kind + PIECE_KIND_COUNT;
+    }
+
+    /**
+     * Gets the piece kind of a piece code.
+     * @param code of piece
+     * @return kind of piece
+     */
+    public static int kindOf(int code) {
+        return code < PIECE_KIND_COUNT ? code : code - PIECE_KIND_COUNT;
+    }
+
+    /**
+     * Gets if a piece code is white.
+     * @param code of piece
+     * @return true if white, false if black
+     */
+    public static boolean isWhiteCode(int code) {
+        return code < PIECE_KIND_COUNT;
+    }
+
+    /**
+     * Gets the piece code of a FEN character.
+     * @param fen character of piece
+     * @return piece code, or EMPTY if the character is not a piece
+     */
+    public static int codeFromFEN(char fen) {
+        return FEN_PIECES.indexOf(fen);
+    }
+
+    /**
+     * Gets the FEN character of a piece code.
+     * @param code of piece
+     * @return FEN character
+     */
+    public static char fenFromCode(int code) {
+        return FEN_PIECES.charAt(code);
+    }
+
+    /**
+     * Places a piece on a square, replacing whatever was there.
+     * @param square to place piece
+     * @param code of piece, or EMPTY to clear the square
+     */
+    public void setPiece(int square, int code) {
+        int current = getPiece(square);
+        if (current != EMPTY) removePiece(square, current);
+        if (code != EMPTY) addPiece(square, code);
+    }
+
+    /**
+     * Gets the piece on a square.
+     * @param square to check
+     * @return piece code, or EMPTY if none exist on the square
+     */
+    public int getPiece(int square) {
+        long bit = 1L << square;
+        if (((whiteOccupancy | blackOccupancy) & bit) == 0) return EMPTY;
+        int i = (whiteOccupancy & bit) != 0 ? 0 : PIECE_KIND_COUNT;
+        int end = i + PIECE_KIND_COUNT;
+        for (; i < end; i++) {
+            if ((pieceBoards[i] & bit) != 0) return i;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Plays a move, updating pieces, castling rights, en passant, clocks and side to move.
+     * Pushes an undo record so the move can be taken back with unmakeMove.
+     * The move must be pseudo-legal for the side to play and carry the flags the move generator gives it.
+     * @param move packed move
+     */
+    public void makeMove(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int promotion = Moves.promotion(move);
+        boolean isWhite = isWhiteToPlay();
+        int code = getPiece(from);
+        boolean isEnPassant = (move & Moves.EN_PASSANT) != 0;
+        int captured = (move & Moves.CAPTURE) != 0 && !isEnPassant ? getPiece(to) : EMPTY;
+
+        pushUndo(move, captured);
+        Metrics.increment(Metrics.Counter.MOVES_MADE);
+        int castlingRights = getCastlingRights();
+        hash ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(getEnPassantSquare()) ^ Zobrist.blackToPlay();
+        if (isEnPassant) {
+            removePiece(Moves.capturedSquare(move, isWhite), pieceCode(PAWN, !isWhite));
+        } else if (captured != EMPTY) {
+            removePiece(to, captured);
+        }
+        removePiece(from, code);
+        addPiece(to, promotion == 0 ? code : pieceCode(promotion, isWhite));
+
+        if ((move & Moves.CASTLE) != 0) {
+            moveCastlingRook(from, to, pieceCode(ROOK, isWhite), false);
+        }
+
+        int enPassantSquare = (move & Moves.DOUBLE_PUSH) != 0 ? (from + to) / 2 : NO_SQUARE;
+        castlingRights &= CASTLING_KEPT[from] & CASTLING_KEPT[to];
+        hash ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare);
+        long halfMoves = captured != EMPTY || kindOf(code) == PAWN ? 0
+                : Math.min(getHalfMoves() + 1, HALF_MOVES_MASK);
+        // Only the fullmove number carries over, it counts up after black moves.
+        state = ((state >>> STATE_FULL_MOVES_SHIFT) + (isWhite ? 0 : 1)) << STATE_FULL_MOVES_SHIFT
+                | (isWhite ? BLACK_TO_PLAY : 0L)
+                | ((long) castlingRights << STATE_CASTLING_SHIFT)
+                | ((long) (enPassantSquare + 1) << STATE_EN_PASSANT_SHIFT)
+                | (halfMoves << STATE_HALF_MOVES_SHIFT);
+    }
+
+    /**
+     * Takes back the last move played with makeMove, restoring everything from its undo record.
+     */
+    public void unmakeMove() {
+        int record = undoStack[--undoCount];
+        int move = record >>> UNDO_MOVE_SHIFT;
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        boolean isWhite = !isWhiteToPlay();
+        int moved = getPiece(to);
+        int captured = (record & 0xF) - 1;
+
+        removePiece(to, moved);
+        addPiece(from, Moves.promotion(move) == 0 ? moved : pieceCode(PAWN, isWhite));
+        if ((move & Moves.EN_PASSANT) != 0) {
+            addPiece(Moves.capturedSquare(move, isWhite), pieceCode(PAWN, !isWhite));
+        } else if (captured != EMPTY) {
+            addPiece(to, captured);
+        }
+        if ((move & Moves.CASTLE) != 0) {
+            moveCastlingRook(from, to, pieceCode(ROOK, isWhite), true);
+        }
+
+        state = stateHistory[undoCount];
+        hash = hashHistory[--historyCount];
+        repetitionFilter[(int) hash & (REPETITION_FILTER_SIZE - 1)]--;
+    }
+
+    /**
+     * Gets the number of moves that can be taken back with unmakeMove.
+     * @return number of undo records
+     */
+    public int getUndoCount() {
+        return undoCount;
+    }
+
+    /**
+     * Gets the last move played with makeMove that has not been taken back.
+     * @return packed move, or Moves.NONE if there is none
+     */
+    public int getLastMove() {
+        return undoCount == 0 ? Moves.NONE : undoStack[undoCount - 1] >>> UNDO_MOVE_SHIFT;
+    }
+
+    private void pushUndo(int move, int captured) {
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+            stateHistory = Arrays.copyOf(stateHistory, stateHistory.length * 2);
+        }
+        if (historyCount == hashHistory.length) {
+            hashHistory = Arrays.copyOf(hashHistory, hashHistory.length * 2);
+        }
+        repetitionFilter[(int) hash & (REPETITION_FILTER_SIZE - 1)]++;
+        stateHistory[undoCount] = state;
+        hashHistory[historyCount++] = hash;
+        undoStack[undoCount++] = (captured + 1) | (move << UNDO_MOVE_SHIFT);
+    }
+
+    /**
+     * Counts how often the current position occurred before, with the same side to play, since the last capture
+     * or pawn move. Positions a copy inherited from the position it was copied from count too.
+     * @return number of earlier occurrences
+     */
+    public int getRepetitionCount() {
+        if (repetitionFilter[(int) hash & (REPETITION_FILTER_SIZE - 1)] == 0) return 0;
+        int count = 0;
+        int oldest = Math.max(0, historyCount - getHalfMoves());
+        for (int i = historyCount - 2; i >= oldest; i -= 2) {
+            if (hashHistory[i] == hash) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether the current position occurred before, which a search can score as a draw.
+     * @return true if repeated at least once
+     */
+    public boolean isRepetition() {
+        return getRepetitionCount() > 0;
+    }
+
+    /**
+     * Checks whether the current position occurred three times, which lets either side claim a draw.
+     * @return true if repeated at least twice before
+     */
+    public boolean isThreefoldRepetition() {
+        return getRepetitionCount() >= 2;
+    }
+
+    /**
+     * Checks whether fifty moves by each side passed without a capture or pawn move.
+     * @return true if either side may claim a draw
+     */
+    public boolean isFiftyMoveDraw() {
+        return getHalfMoves() >= 100;
+    }
+
+    private void moveCastlingRook(int kingFrom, int kingTo, int rookCode, boolean isUndo) {
+        int rookFrom = kingTo > kingFrom ? kingFrom + 3 : kingFrom - 4;
+        int rookTo = kingTo > kingFrom ? kingFrom + 1 : kingFrom - 1;
+        if (isUndo) {
+            removePiece(rookTo, rookCode);
+            addPiece(rookFrom, rookCode);
+        } else {
+            removePiece(rookFrom, rookCode);
+            addPiece(rookTo, rookCode);
+        }
+    }
+
+    private void addPiece(int square, int code) {
+        long bit = 1L << square;
+        int kind = kindOf(code);
+        pieceBoards[code] |= bit;
+        hash ^= Zobrist.piece(code, square);
+        middlegameScore += Evaluator.getMiddlegameScore(code, square);
+        endgameScore += Evaluator.getEndgameScore(code, square);
+        phase += Evaluator.getPhaseWeight(kind);
+        if (isWhiteCode(code)) {
+            whiteOccupancy |= bit;
+            whiteMaterial += Evaluator.getMaterialScore(kind);
+        } else {
+            blackOccupancy |= bit;
+            blackMaterial += Evaluator.getMaterialScore(kind);
+        }
+    }
+
+    private void removePiece(int square, int code) {
+        long mask = ~(1L << square);
+        int kind = kindOf(code);
+        pieceBoards[code] &= mask;
+        hash ^= Zobrist.piece(code, square);
+        middlegameScore -= Evaluator.getMiddlegameScore(code, square);
+        endgameScore -= Evaluator.getEndgameScore(code, square);
+        phase -= Evaluator.getPhaseWeight(kind);
+        if (isWhiteCode(code)) {
+            whiteOccupancy &= mask;
+            whiteMaterial -= Evaluator.getMaterialScore(kind);
+        } else {
+            blackOccupancy &= mask;
+            blackMaterial -= Evaluator.getMaterialScore(kind);
+        }
+    }
+
+    /**
+     * Evaluates if a square is attacked by any piece of the given color.
+     * @param square to check
+     * @param byWhite color of the attacking side
+     * @return true if attacked, false if not
+     */
+    public boolean isAttacked(int square, boolean byWhite) {
+        long occupancy = getOccupancy();
+        int offset = byWhite ? 0 : PIECE_KIND_COUNT;
+        if ((Attacks.pawnAttacks(square, !byWhite) & pieceBoards[PAWN + offset]) != 0) return true;
+        if ((Attacks.knightAttacks(square) & pieceBoards[KNIGHT + offset]) != 0) return true;
+        if ((Attacks.kingAttacks(square) & pieceBoards[KING + offset]) != 0) return true;
+        long queens = pieceBoards[QUEEN + offset];
+        if ((Attacks.rookAttacks(square, occupancy) & (pieceBoards[ROOK + offset] | queens)) != 0) return true;
+        return (Attacks.bishopAttacks(square, occupancy) & (pieceBoards[BISHOP + offset] | queens)) != 0;
+    }
+
+    /**
+     * Gets every piece of a color attacking a square, given an occupancy that may differ from the board's,
+     * such as with a king lifted off its square.
+     * @param square to check
+     * @param byWhite color of the attacking side
+     * @param occupancy pieces that block sliding attacks
+     * @return attacking pieces as a bitboard
+     */
+    public long attackersTo(int square, boolean byWhite, long occupancy) {
+        int offset = byWhite ? 0 : PIECE_KIND_COUNT;
+        long queens = pieceBoards[QUEEN + offset];
+        return (Attacks.pawnAttacks(square, !byWhite) & pieceBoards[PAWN + offset])
+                | (Attacks.knightAttacks(square) & pieceBoards[KNIGHT + offset])
+                | (Attacks.kingAttacks(square) & pieceBoards[KING + offset])
+                | (Attacks.rookAttacks(square, occupancy) & (pieceBoards[ROOK + offset] | queens))
+                | (Attacks.bishopAttacks(square, occupancy) & (pieceBoards[BISHOP + offset] | queens));
+    }
+
+    /**
+     * Evaluates if the king of a color is attacked.
+     * @param isWhite color of king
+     * @return true if in check, false if not
+     */
+    public boolean isInCheck(boolean isWhite) {
+        int kingSquare = getKingSquare(isWhite);
+        return kingSquare != NO_SQUARE && isAttacked(kingSquare, !isWhite);
+    }
+
+    /**
+     * Gets the bitboard of one piece code.
+     * @param code of piece
+     * @return bitboard with a bit set for every square holding that piece
+     */
+    public long getPieceBoard(int code) {
+        return pieceBoards[code];
+    }
+
+    /**
+     * Gets the bitboard of all pieces of one color.
+     * @param isWhite color to get
+     * @return bitboard of that color's pieces
+     */
+    public long getColorOccupancy(boolean isWhite) {
+        return isWhite ? whiteOccupancy : blackOccupancy;
+    }
+
+    /**
+     * Gets the bitboard of all pieces.
+     * @return bitboard of every occupied square
+     */
+    public long getOccupancy() {
+        return whiteOccupancy | blackOccupancy;
+    }
+
+    /**
+     * Evaluates if a square is empty.
+     * @param square to check
+     * @return true if empty, false if not
+     */
+    public boolean isEmpty(int square) {
+        return ((whiteOccupancy | blackOccupancy) & (1L << square)) == 0;
+    }
+
+    /**
+     * Evaluates if a square is occupied by a piece of the given color.
+     * @param isWhite color to check for
+     * @param square to check
+     * @return true if occupied by that color, false if not
+     */
+    public boolean isOccupiedBy(boolean isWhite, int square) {
+        return (getColorOccupancy(isWhite) & (1L << square)) != 0;
+    }
+
+    /**
+     * Gets the square of a king.
+     * @param isWhite color of king
+     * @return square of king, or NO_SQUARE if there is no such king
+     */
+    public int getKingSquare(boolean isWhite) {
+        long king = pieceBoards[pieceCode(KING, isWhite)];
+        return king == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Gets the Zobrist key of this position, kept up to date by every change to pieces and game state.
+     * @return 64-bit key
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Gets the running middlegame score, material plus piece-square bonuses of every piece.
+     * @return score in centipawns from white's point of view
+     */
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    /**
+     * Gets the running endgame score, material plus piece-square bonuses of every piece.
+     * @return score in centipawns from white's point of view
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * Gets the running game phase, the sum of every piece's phase weight.
+     * @return phase, Evaluator.MAX_PHASE or more in the opening and 0 with only kings and pawns left
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Gets the material of one color still on the board.
+     * @param isWhite color to count
+     * @return material score in pawns
+     */
+    public int getMaterial(boolean isWhite) {
+        return isWhite ? whiteMaterial : blackMaterial;
+    }
+
+    public boolean isWhiteToPlay() {
+        return (state & BLACK_TO_PLAY) == 0;
+    }
+
+    public void setWhiteToPlay(boolean isWhiteToPlay) {
+        if (isWhiteToPlay() != isWhiteToPlay) hash ^= Zobrist.blackToPlay();
+        state = isWhiteToPlay ? state & ~BLACK_TO_PLAY : state | BLACK_TO_PLAY;
+    }
+
+    /**
+     * Gets castling rights as a bitmask of WHITE_KING_SIDE, WHITE_QUEEN_SIDE, BLACK_KING_SIDE and BLACK_QUEEN_SIDE.
+     * @return castling rights
+     */
+    public int getCastlingRights() {
+        return (int) (state >>> STATE_CASTLING_SHIFT) & ALL_CASTLING;
+    }
+
+    public void setCastlingRights(int castlingRights) {
+        hash ^= Zobrist.castling(getCastlingRights()) ^ Zobrist.castling(castlingRights);
+        state = setField(state, STATE_CASTLING_SHIFT, ALL_CASTLING, castlingRights);
+    }
+
+    /**
+     * Gets the square a pawn may capture en passant onto.
+     * @return en passant square, or NO_SQUARE if none
+     */
+    public int getEnPassantSquare() {
+        return (int) ((state >>> STATE_EN_PASSANT_SHIFT) & EN_PASSANT_MASK) - 1;
+    }
+
+    public void setEnPassantSquare(int enPassantSquare) {
+        hash ^= Zobrist.enPassant(getEnPassantSquare()) ^ Zobrist.enPassant(enPassantSquare);
+        state = setField(state, STATE_EN_PASSANT_SHIFT, EN_PASSANT_MASK, enPassantSquare + 1);
+    }
+
+    public int getHalfMoves() {
+        return (int) ((state >>> STATE_HALF_MOVES_SHIFT) & HALF_MOVES_MASK);
+    }
+
+    public void setHalfMoves(int halfMoves) {
+        state = setField(state, STATE_HALF_MOVES_SHIFT, HALF_MOVES_MASK, halfMoves);
+    }
+
+    public int getFullMoves() {
+        return (int) ((state >>> STATE_FULL_MOVES_SHIFT) & FULL_MOVES_MASK);
+    }
+
+    public void setFullMoves(int fullMoves) {
+        state = setField(state, STATE_FULL_MOVES_SHIFT, FULL_MOVES_MASK, fullMoves);
+    }
+
+    /**
+     * Gets every part of the game state but the pieces as one word, see the STATE_ shifts for its layout.
+     * @return game state word
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Sets side to play, castling rights, en passant square and clocks from a game state word.
+     * @param state game state word as given by getState
+     */
+    public void setState(long state) {
+        setWhiteToPlay((state & BLACK_TO_PLAY) == 0);
+        setCastlingRights((int) (state >>> STATE_CASTLING_SHIFT) & ALL_CASTLING);
+        setEnPassantSquare((int) ((state >>> STATE_EN_PASSANT_SHIFT) & EN_PASSANT_MASK) - 1);
+        this.state = state;
+    }
+
+    private static long setField(long state, int shift, long mask, long value) {
+        return (state & ~(mask << shift)) | ((value & mask) << shift);
+    }
+}
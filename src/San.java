@@ -0,0 +1,187 @@
+public final class San {
+
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    private San() {
+    }
+
+    /**
+     * Resolves a move in standard algebraic notation (SAN) against the legal moves of a position.
+     * Check, mate and annotation marks are ignored, castling may be written with letter O or digit 0,
+     * and a promotion may leave out its '='.
+     * @param position to resolve the move in, not changed
+     * @param san move such as "Nbd7", "exd5", "e8=Q+" or "O-O"
+     * @param moves scratch buffer, at least MoveGenerator.MAX_MOVES long
+     * @return packed legal move, or Moves.NONE if the move is illegal or ambiguous
+     */
+    public static int parse(Position position, CharSequence san, int[] moves) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) end--;
+        if (end == 0) return Moves.NONE;
+
+        char first = san.charAt(0);
+        if (first == 'O' || first == '0') {
+            boolean isQueenSide = end >= 5;
+            int count = MoveGenerator.generateLegalMoves(position, moves);
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                if (Moves.hasFlag(move, Moves.CASTLE) && (Moves.to(move) < Moves.from(move)) == isQueenSide) return move;
+            }
+            return Moves.NONE;
+        }
+
+        int i = 0;
+        int kind = PIECE_LETTERS.indexOf(first);
+        if (kind >= 0) {
+            i = 1;
+        } else {
+            kind = Position.PAWN;
+        }
+        int promotion = 0;
+        if (kind == Position.PAWN && end >= 2) {
+            int letter = PIECE_LETTERS.indexOf(san.charAt(end - 1));
+            if (letter > Position.PAWN && letter < Position.KING) {
+                promotion = letter;
+                end -= san.charAt(end - 2) == '=' ? 2 : 1;
+            }
+        }
+        if (end - i < 2) return Moves.NONE;
+        int toFile = san.charAt(end - 2) - 'a';
+        int toRank = '8' - san.charAt(end - 1);
+        if (!isOnBoard(toFile) || !isOnBoard(toRank)) return Moves.NONE;
+        int to = Position.square(toRank, toFile);
+
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int j = i; j < end - 2; j++) {
+            char c = san.charAt(j);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = '8' - c;
+            } else if (c != 'x' && c != '-' && c != ':') {
+                return Moves.NONE;
+            }
+        }
+
+        // Only pieces of the right kind that reach the target can be meant, so rather than generating every
+        // legal move, look back from the target along its attack sets and test just those few for legality.
+        boolean isWhite = position.isWhiteToPlay();
+        long occupancy = position.getOccupancy();
+        long pieces = position.getPieceBoard(Position.pieceCode(kind, isWhite));
+        int targetCode = position.getPiece(to);
+        if (targetCode != Position.EMPTY && Position.isWhiteCode(targetCode) == isWhite) return Moves.NONE;
+        int flags = targetCode != Position.EMPTY ? Moves.CAPTURE : 0;
+        long candidates;
+        switch (kind) {
+            case Position.PAWN -> {
+                boolean isPromotionRank = toRank == (isWhite ? 0 : Position.BOARD_SIZE - 1);
+                if (isPromotionRank != (promotion != 0)) return Moves.NONE;
+                if (fromFile >= 0 && fromFile != toFile) {
+                    if (targetCode == Position.EMPTY) {
+                        if (to != position.getEnPassantSquare()) return Moves.NONE;
+                        flags = Moves.CAPTURE | Moves.EN_PASSANT;
+                    }
+                    candidates = Attacks.pawnAttacks(to, !isWhite) & pieces;
+                } else {
+                    if (targetCode != Position.EMPTY) return Moves.NONE;
+                    int behind = to + (isWhite ? Position.BOARD_SIZE : -Position.BOARD_SIZE);
+                    candidates = pieces & (1L << behind);
+                    int doubleRank = isWhite ? Position.BOARD_SIZE / 2 : Position.BOARD_SIZE / 2 - 1;
+                    if (candidates == 0 && toRank == doubleRank && (occupancy & (1L << behind)) == 0) {
+                        candidates = pieces & (1L << (behind + behind - to));
+                        flags = Moves.DOUBLE_PUSH;
+                    }
+                }
+            }
+            case Position.KNIGHT -> candidates = Attacks.knightAttacks(to) & pieces;
+            case Position.BISHOP -> candidates = Attacks.bishopAttacks(to, occupancy) & pieces;
+            case Position.ROOK -> candidates = Attacks.rookAttacks(to, occupancy) & pieces;
+            case Position.QUEEN -> candidates = Attacks.queenAttacks(to, occupancy) & pieces;
+            default -> candidates = Attacks.kingAttacks(to) & pieces;
+        }
+
+        int found = Moves.NONE;
+        while (candidates != 0) {
+            int from = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            if ((fromFile >= 0 && Position.fileOf(from) != fromFile)
+                    || (fromRank >= 0 && Position.rankOf(from) != fromRank)) {
+                continue;
+            }
+            int move = Moves.encode(from, to, promotion, flags);
+            position.makeMove(move);
+            boolean isLegal = !position.isInCheck(isWhite);
+            position.unmakeMove();
+            if (!isLegal) continue;
+            if (found != Moves.NONE) return Moves.NONE;
+            found = move;
+        }
+        return found;
+    }
+
+    /**
+     * Writes a legal move in standard algebraic notation, with the least disambiguation needed and a check
+     * or mate mark.
+     * @param position the move is played in, left as it was
+     * @param move packed legal move
+     * @param moves scratch buffer, at least MoveGenerator.MAX_MOVES long
+     * @param out builder to append to
+     * @return out, for chaining
+     */
+    public static StringBuilder append(Position position, int move, int[] moves, StringBuilder out) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int kind = Position.kindOf(position.getPiece(from));
+        if (Moves.hasFlag(move, Moves.CASTLE)) {
+            out.append(to > from ? "O-O" : "O-O-O");
+        } else if (kind == Position.PAWN) {
+            if (Moves.isCapture(move)) out.append((char) ('a' + Position.fileOf(from))).append('x');
+            appendSquare(to, out);
+            if (Moves.promotion(move) != 0) out.append('=').append(PIECE_LETTERS.charAt(Moves.promotion(move)));
+        } else {
+            out.append(PIECE_LETTERS.charAt(kind));
+            appendDisambiguation(position, move, kind, moves, out);
+            if (Moves.isCapture(move)) out.append('x');
+            appendSquare(to, out);
+        }
+        position.makeMove(move);
+        GameStatus status = MoveGenerator.getGameStatus(position, moves);
+        position.unmakeMove();
+        if (status == GameStatus.CHECKMATE) {
+            out.append('#');
+        } else if (status == GameStatus.CHECK) {
+            out.append('+');
+        }
+        return out;
+    }
+
+    private static void appendDisambiguation(Position position, int move, int kind, int[] moves, StringBuilder out) {
+        int from = Moves.from(move);
+        int count = MoveGenerator.generateLegalMoves(position, moves);
+        boolean isAmbiguous = false;
+        boolean isFileShared = false;
+        boolean isRankShared = false;
+        for (int i = 0; i < count; i++) {
+            int other = Moves.from(moves[i]);
+            if (other == from || Moves.to(moves[i]) != Moves.to(move)
+                    || Position.kindOf(position.getPiece(other)) != kind) {
+                continue;
+            }
+            isAmbiguous = true;
+            isFileShared |= Position.fileOf(other) == Position.fileOf(from);
+            isRankShared |= Position.rankOf(other) == Position.rankOf(from);
+        }
+        if (!isAmbiguous) return;
+        if (!isFileShared || isRankShared) out.append((char) ('a' + Position.fileOf(from)));
+        if (isFileShared) out.append((char) ('8' - Position.rankOf(from)));
+    }
+
+    private static void appendSquare(int square, StringBuilder out) {
+        out.append((char) ('a' + Position.fileOf(square))).append((char) ('8' - Position.rankOf(square)));
+    }
+
+    private static boolean isOnBoard(int index) {
+        return index >= 0 && index < Position.BOARD_SIZE;
+    }
+}
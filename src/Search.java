@@ -0,0 +1,320 @@
+public class Search {
+
+    public static final int MAX_PLY = 64;
+    public static final int INFINITY = 1_000_000;
+    public static final int MATE = 100_000;
+
+    // How many nodes to search between looking at the clock.
+    private static final int CHECK_INTERVAL = 2048;
+    private static final int DEFAULT_HASH_MEGABYTES = 16;
+
+    private final TranspositionTable table;
+    private final Position position = new Position();
+    private final int[][] moveBuffers = MoveGenerator.newPlyBuffers(MAX_PLY);
+    private final int[][] scoreBuffers = MoveGenerator.newPlyBuffers(MAX_PLY);
+    private final MoveOrderer moveOrderer = new MoveOrderer();
+    private final StaticExchange staticExchange = new StaticExchange();
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private SearchListener listener;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private volatile boolean isStopped;
+
+    /**
+     * Constructor for a search with its own transposition table.
+     */
+    public Search() {
+        this(new TranspositionTable(DEFAULT_HASH_MEGABYTES));
+    }
+
+    /**
+     * Constructor for a search using a given transposition table, which may be shared with other searches.
+     * @param table transposition table
+     */
+    public Search(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Sets a listener told about every completed iteration.
+     * @param listener to tell, or null for none
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible. It returns the best move of the last completed iteration.
+     */
+    public void stop() {
+        isStopped = true;
+    }
+
+    /**
+     * Searches a position with iterative deepening until a depth, time or node budget runs out.
+     * The given position is copied and never changed. A stop requested since the last call to prepare
+     * ends the search at once, so call prepare before starting a search another thread may stop.
+     * @param root position to search
+     * @param maxDepth deepest iteration to run, at most MAX_PLY
+     * @param timeLimitMillis time budget in milliseconds, or 0 for none
+     * @param maxNodes node budget, or 0 for none
+     * @return result of the deepest completed iteration
+     */
+    public SearchResult search(Position root, int maxDepth, long timeLimitMillis, long maxNodes) {
+        return search(root, 1, maxDepth, timeLimitMillis, maxNodes);
+    }
+
+    /**
+     * Clears a previous stop request. Searches do not do this themselves, so call it on the thread that
+     * starts the search, before handing the search to another thread. A stop that arrives in between
+     * is then not lost.
+     */
+    public void prepare() {
+        isStopped = false;
+    }
+
+    /**
+     * Searches a position with iterative deepening starting at a given depth, so helper threads
+     * of a parallel search can work ahead of the main thread.
+     * @param firstDepth first iteration to run
+     */
+    SearchResult search(Position root, int firstDepth, int maxDepth, long timeLimitMillis, long maxNodes) {
+        long start = System.currentTimeMillis();
+        position.copyFrom(root);
+        deadline = timeLimitMillis > 0 ? start + timeLimitMillis : Long.MAX_VALUE;
+        nodeLimit = maxNodes > 0 ? maxNodes : Long.MAX_VALUE;
+        nodes = 0;
+        moveOrderer.startSearch();
+
+        int[] rootMoves = moveBuffers[0];
+        int rootCount = MoveGenerator.generateLegalMoves(position, rootMoves);
+        SearchResult result = new SearchResult(rootCount > 0 ? rootMoves[0] : Moves.NONE,
+                rootCount > 0 ? 0 : terminalScore(0), 0, 0, 0, new int[0]);
+        if (rootCount == 0) return result;
+
+        pvLength[0] = 0;
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= Math.min(maxDepth, MAX_PLY); depth++) {
+            SearchIterationEvent event = new SearchIterationEvent();
+            event.begin();
+            long iterationStart = Metrics.ENABLED ? System.nanoTime() : 0;
+            long iterationNodes = nodes;
+            int score = searchRoot(rootMoves, rootCount, depth);
+            if (isStopped) break;
+            int[] pv = new int[pvLength[0]];
+            System.arraycopy(pvTable[0], 0, pv, 0, pv.length);
+            result = new SearchResult(pv[0], score, depth, nodes, System.currentTimeMillis() - start, pv);
+            if (Metrics.ENABLED) {
+                Metrics.recordIteration(depth, nodes - iterationNodes, System.nanoTime() - iterationStart);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.setDepth(depth);
+                event.setScore(score);
+                event.setNodes(nodes - iterationNodes);
+                event.setBestMove(Moves.toUCI(pv[0]));
+                event.commit();
+            }
+            if (listener != null) listener.onIteration(result);
+            if (Math.abs(score) >= MATE - MAX_PLY) break;
+        }
+        return result;
+    }
+
+    /**
+     * Searches every root move, trying the best move of the previous iteration first.
+     */
+    private int searchRoot(int[] rootMoves, int rootCount, int depth) {
+        if (pvLength[0] > 0) moveToFront(rootMoves, rootCount, pvTable[0][0]);
+        int alpha = -INFINITY;
+        pvLength[0] = 0;
+        for (int i = 0; i < rootCount; i++) {
+            position.makeMove(rootMoves[i]);
+            int score = -negamax(depth - 1, 1, -INFINITY, -alpha);
+            position.unmakeMove();
+            if (isStopped) return alpha;
+            if (score > alpha) {
+                alpha = score;
+                updatePrincipalVariation(0, rootMoves[i]);
+            }
+        }
+        return alpha;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if (depth == 0) return quiesce(ply, alpha, beta);
+        pvLength[ply] = ply;
+        if ((++nodes & (CHECK_INTERVAL - 1)) == 0) checkLimits();
+        if (isStopped) return 0;
+        if (ply >= MAX_PLY) return Evaluator.evaluate(position);
+        if (position.isFiftyMoveDraw() || position.isRepetition()) return 0;
+
+        long hash = position.getHash();
+        long entry = table.probe(hash);
+        int hashMove = Moves.NONE;
+        if (entry != 0) {
+            hashMove = TranspositionTable.getMove(entry);
+            if (TranspositionTable.getDepth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int[] moves = moveBuffers[ply];
+        int[] scores = scoreBuffers[ply];
+        int count = MoveGenerator.generateLegalMoves(position, moves);
+        if (count == 0) return terminalScore(ply);
+        moveOrderer.scoreMoves(position, moves, scores, count, hashMove, ply);
+        int best = -INFINITY;
+        int bestMove = Moves.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = MoveOrderer.pickNext(moves, scores, i, count);
+            position.makeMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            position.unmakeMove();
+            if (isStopped) return 0;
+            if (score > best) {
+                best = score;
+                bestMove = move;
+            }
+            if (score > alpha) {
+                alpha = score;
+                updatePrincipalVariation(ply, move);
+                if (alpha >= beta) {
+                    moveOrderer.onCutoff(position, move, ply, depth);
+                    break;
+                }
+            }
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER_BOUND
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        table.store(hash, bestMove, scoreToTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Searches captures and promotions until the position is quiet, so the score of a leaf is never taken
+     * in the middle of an exchange. The side to play may stand pat on the static evaluation instead of
+     * capturing, and captures that lose material by static exchange are never played. In check every
+     * evasion is searched, since standing pat is not an option there.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if ((++nodes & (CHECK_INTERVAL - 1)) == 0) checkLimits();
+        if (isStopped) return 0;
+        if (ply >= MAX_PLY) return Evaluator.evaluate(position);
+        if (position.isFiftyMoveDraw() || position.isRepetition()) return 0;
+
+        boolean isInCheck = position.isInCheck(position.isWhiteToPlay());
+        int best = -INFINITY;
+        if (!isInCheck) {
+            best = Evaluator.evaluate(position);
+            if (best >= beta) return best;
+            if (best > alpha) alpha = best;
+        }
+
+        int[] moves = moveBuffers[ply];
+        int[] scores = scoreBuffers[ply];
+        int count = MoveGenerator.generateLegalMoves(position, moves);
+        if (count == 0) return terminalScore(ply);
+        if (!isInCheck) count = keepWinningCaptures(moves, count);
+        moveOrderer.scoreMoves(position, moves, scores, count, Moves.NONE, ply);
+        for (int i = 0; i < count; i++) {
+            int move = MoveOrderer.pickNext(moves, scores, i, count);
+            position.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            position.unmakeMove();
+            if (isStopped) return 0;
+            if (score > best) best = score;
+            if (score > alpha) {
+                alpha = score;
+                updatePrincipalVariation(ply, move);
+                if (alpha >= beta) break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Drops quiet moves and captures the static exchange evaluator expects to lose material.
+     * @return number of moves kept at the front of the buffer
+     */
+    private int keepWinningCaptures(int[] moves, int count) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if ((move & Moves.CAPTURE) == 0 && Moves.promotion(move) == 0) continue;
+            if (staticExchange.evaluate(position, move) >= 0) moves[kept++] = move;
+        }
+        return kept;
+    }
+
+    /**
+     * Converts a mate score relative to the root into one relative to this node, so it stays true
+     * when the same position is reached at another ply.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score + ply;
+        if (score <= -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score - ply;
+        if (score <= -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+
+    /**
+     * Scores a position with no legal moves.
+     * @param ply distance from the root, so shorter mates score higher
+     * @return mated score if in check, otherwise 0 for stalemate
+     */
+    private int terminalScore(int ply) {
+        return position.isInCheck(position.isWhiteToPlay()) ? -MATE + ply : 0;
+    }
+
+    private void updatePrincipalVariation(int ply, int move) {
+        pvTable[ply][ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, length - ply - 1);
+        pvLength[ply] = length;
+    }
+
+    private void checkLimits() {
+        if (nodes >= nodeLimit || System.currentTimeMillis() >= deadline) isStopped = true;
+    }
+
+    private static void moveToFront(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forgets the killer moves and history learned by earlier searches, for starting a new game.
+     * The transposition table is left to its owner.
+     */
+    public void clearHistory() {
+        moveOrderer.clear();
+    }
+
+    /**
+     * Gets the number of nodes searched so far by the current or last search.
+     * @return nodes searched
+     */
+    public long getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,43 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("chess.SearchIteration")
+@Label("Search Iteration")
+@Category("Chess")
+@Description("One completed iteration of iterative deepening, on any searching thread")
+public class SearchIterationEvent extends Event {
+
+    @Label("Depth")
+    private int depth;
+
+    @Label("Score")
+    @Description("Score in centipawns from the side to play's point of view")
+    private int score;
+
+    @Label("Nodes")
+    @Description("Nodes searched in this iteration")
+    private long nodes;
+
+    @Label("Best Move")
+    @Description("Best move in UCI notation")
+    private String bestMove;
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public void setNodes(long nodes) {
+        this.nodes = nodes;
+    }
+
+    public void setBestMove(String bestMove) {
+        this.bestMove = bestMove;
+    }
+}
@@ -0,0 +1,8 @@
+@FunctionalInterface
+public interface SearchListener {
+    /**
+     * Used by a search to report each completed iteration of iterative deepening.
+     * @param result best move, score and principal variation found so far
+     */
+    void onIteration(SearchResult result);
+}
@@ -0,0 +1,67 @@
+public class SearchResult {
+
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedMillis;
+    private final int[] principalVariation;
+
+    public SearchResult(int bestMove, int score, int depth, long nodes, long elapsedMillis, int[] principalVariation) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+        this.principalVariation = principalVariation;
+    }
+
+    /**
+     * Gets the best move found.
+     * @return packed move, or Moves.NONE if the side to play has no legal move
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Gets the score of the best move from the side to play's point of view.
+     * @return score in centipawns, or within Search.MAX_PLY of Search.MATE for forced mates
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Gets the line of best play the search expects, starting with the best move.
+     * @return packed moves
+     */
+    public int[] getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    /**
+     * Formats the principal variation in UCI notation.
+     * @return moves separated by spaces
+     */
+    public String principalVariationToString() {
+        StringBuilder builder = new StringBuilder();
+        for (int move : principalVariation) {
+            if (builder.length() > 0) builder.append(' ');
+            builder.append(Moves.toUCI(move));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,80 @@
+public final class StaticExchange {
+
+    // Piece values in centipawns by kind, taken from the pieces' material scores. The king has no material
+    // score, so it gets a sentinel worth more than everything else together, and capturing with it only pays
+    // when nothing can capture back.
+    private static final int[] VALUES = new int[Position.KING + 1];
+    private static final int CENTIPAWNS_PER_PAWN = 100;
+    private static final int KING_VALUE = 20_000;
+    private static final int MAX_EXCHANGES = 32;
+
+    static {
+        for (int kind = Position.PAWN; kind < Position.KING; kind++) {
+            VALUES[kind] = Piece.fromCode(kind).getMaterialScore() * CENTIPAWNS_PER_PAWN;
+        }
+        VALUES[Position.KING] = KING_VALUE;
+    }
+
+    private final int[] gains = new int[MAX_EXCHANGES];
+
+    /**
+     * Constructor for a static exchange evaluator. It keeps a scratch buffer, so use one per thread.
+     */
+    public StaticExchange() {
+    }
+
+    /**
+     * Works out what a capture wins once both sides have traded off on its square with their least valuable
+     * attackers, each side free to stop when trading on would lose. Pieces behind a slider join in once it
+     * has moved off the line. Pins are ignored, so the result is an estimate.
+     * @param position the move is played in, not changed
+     * @param move capture, promotion or quiet move
+     * @return material won by the side to play in centipawns, negative if the move loses material
+     */
+    public int evaluate(Position position, int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        boolean isWhite = position.isWhiteToPlay();
+        int promotion = Moves.promotion(move);
+
+        long occupancy = position.getOccupancy() & ~(1L << from);
+        if ((move & Moves.EN_PASSANT) != 0) {
+            occupancy &= ~(1L << Moves.capturedSquare(move, isWhite));
+            gains[0] = VALUES[Position.PAWN];
+        } else {
+            int captured = position.getPiece(to);
+            gains[0] = captured == Position.EMPTY ? 0 : VALUES[Position.kindOf(captured)];
+        }
+        int onSquare = VALUES[Position.kindOf(position.getPiece(from))];
+        if (promotion != 0) {
+            gains[0] += VALUES[promotion] - VALUES[Position.PAWN];
+            onSquare = VALUES[promotion];
+        }
+
+        boolean side = !isWhite;
+        int depth = 0;
+        while (depth + 1 < MAX_EXCHANGES) {
+            long attackers = position.attackersTo(to, side, occupancy) & occupancy;
+            if (attackers == 0) break;
+            int kind = Position.PAWN;
+            long attacker = attackers & position.getPieceBoard(Position.pieceCode(kind, side));
+            while (attacker == 0) {
+                kind++;
+                attacker = attackers & position.getPieceBoard(Position.pieceCode(kind, side));
+            }
+            long remaining = occupancy & ~Long.lowestOneBit(attacker);
+            // A king may not capture onto a square the other side still attacks.
+            if (kind == Position.KING && (position.attackersTo(to, !side, remaining) & remaining) != 0) break;
+            depth++;
+            gains[depth] = onSquare - gains[depth - 1];
+            occupancy = remaining;
+            onSquare = VALUES[kind];
+            side = !side;
+        }
+        while (depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+            depth--;
+        }
+        return gains[0];
+    }
+}
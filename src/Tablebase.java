@@ -0,0 +1,149 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class Tablebase {
+
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private final Path directory;
+    private volatile EndgameTable[] tables = new EndgameTable[0];
+    private volatile int maxPieces = 2;
+
+    /**
+     * Constructor for a tablebase that maps every table found in a directory. Tables generated later can be
+     * added with open.
+     * @param directory holding distance and result files
+     * @throws IOException if the directory or a table cannot be read
+     */
+    public Tablebase(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        // A table is complete once its result file exists, the generator writes it last.
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EndgameTable.RESULT_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                open(fileName.substring(0, fileName.length() - EndgameTable.RESULT_SUFFIX.length()));
+            }
+        }
+    }
+
+    /**
+     * Maps one table from the directory, if it is not already open.
+     * @param name of material, such as "KQvKR"
+     * @throws IOException if the table cannot be read
+     */
+    public synchronized void open(String name) throws IOException {
+        if (contains(name)) return;
+        EndgameTable table = new EndgameTable(name);
+        table.open(directory);
+        EndgameTable[] opened = Arrays.copyOf(tables, tables.length + 1);
+        opened[tables.length] = table;
+        maxPieces = Math.max(maxPieces, table.getPieceCount());
+        tables = opened;
+    }
+
+    /**
+     * Checks whether a table is open.
+     * @param name of material, in any order
+     * @return true if the table can be probed
+     */
+    public boolean contains(String name) {
+        String canonical = EndgameTable.canonicalName(name);
+        for (EndgameTable table : tables) {
+            if (table.getName().equals(canonical)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the most pieces, kings included, of any open table.
+     * @return piece count below which positions may be probed
+     */
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     * Looks up the exact score of a position. Positions with castling rights or a possible en passant capture are
+     * not in the tables. The fifty move rule is not taken into account.
+     * @param position to look up, not changed
+     * @return Search.MATE less the plies to mate for a win, its negative for a loss, 0 for a draw,
+     *         or UNKNOWN if no table holds the position
+     */
+    public int probe(Position position) {
+        int pieceCount = Long.bitCount(position.getOccupancy());
+        if (pieceCount == 2) return 0;
+        if (pieceCount > maxPieces || !isProbeable(position)) return UNKNOWN;
+        long key = EndgameTable.materialKey(position);
+        long flippedKey = EndgameTable.flipMaterialKey(key);
+        int[] squares = new int[EndgameTable.MAX_PIECES];
+        for (EndgameTable table : tables) {
+            if (table.getMaterialKey() == key) return table.getScore(table.index(position, false, squares));
+            if (table.getMaterialKey() == flippedKey) return table.getScore(table.index(position, true, squares));
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Looks up whether a position is won, drawn or lost, reading only the packed result files.
+     * @param position to look up, not changed
+     * @return 1 for a win, 0 for a draw, -1 for a loss, or UNKNOWN if no table holds the position
+     */
+    public int probeResult(Position position) {
+        int pieceCount = Long.bitCount(position.getOccupancy());
+        if (pieceCount == 2) return 0;
+        if (pieceCount > maxPieces || !isProbeable(position)) return UNKNOWN;
+        long key = EndgameTable.materialKey(position);
+        long flippedKey = EndgameTable.flipMaterialKey(key);
+        int[] squares = new int[EndgameTable.MAX_PIECES];
+        for (EndgameTable table : tables) {
+            int index;
+            if (table.getMaterialKey() == key) {
+                index = table.index(position, false, squares);
+            } else if (table.getMaterialKey() == flippedKey) {
+                index = table.index(position, true, squares);
+            } else {
+                continue;
+            }
+            int result = table.getResult(index);
+            return result == EndgameTable.WIN ? 1 : result == EndgameTable.LOSS ? -1 : 0;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Picks the move that wins fastest, or failing that draws, or failing that loses slowest.
+     * @param position to pick a move in, not changed
+     * @param moves scratch buffer, at least MoveGenerator.MAX_MOVES long
+     * @return packed move, or Moves.NONE if the position is not in the tables or has no legal move
+     */
+    public int getBestMove(Position position, int[] moves) {
+        if (probe(position) == UNKNOWN) return Moves.NONE;
+        int count = MoveGenerator.generateLegalMoves(position, moves);
+        int bestMove = Moves.NONE;
+        int bestScore = UNKNOWN;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            int score = probe(position);
+            position.unmakeMove();
+            if (score == UNKNOWN) continue;
+            if (-score > bestScore) {
+                bestScore = -score;
+                bestMove = moves[i];
+            }
+        }
+        return bestMove;
+    }
+
+    private static boolean isProbeable(Position position) {
+        if (position.getCastlingRights() != 0) return false;
+        int enPassantSquare = position.getEnPassantSquare();
+        if (enPassantSquare == Position.NO_SQUARE) return true;
+        boolean isWhite = position.isWhiteToPlay();
+        return (Attacks.pawnAttacks(enPassantSquare, !isWhite)
+                & position.getPieceBoard(Position.pieceCode(Position.PAWN, isWhite))) == 0;
+    }
+}
@@ -0,0 +1,414 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TablebaseGenerator {
+
+    // Index ranges at most this long are visited on one thread.
+    private static final int CHUNK_SIZE = 1 << 14;
+    private static final int WRITE_CHUNK_SIZE = 1 << 24;
+
+    private final Path directory;
+    private final Tablebase tablebase;
+    private final ForkJoinPool pool;
+
+    // State of the table being generated. Distances are worked out in place in the memory-mapped distance file,
+    // so they cost no heap and the operating system pages them to disk when memory runs short. Each pass only
+    // reads distances decided by earlier passes and only writes distances later passes read, so workers share
+    // the buffer without locking.
+    private EndgameTable table;
+    private MappedByteBuffer distances;
+    private final AtomicInteger maxStored = new AtomicInteger();
+
+    /**
+     * Constructor for a generator writing tables into a directory, reusing any tables already there.
+     * @param directory to write distance and result files to
+     * @param threadCount number of worker threads
+     * @throws IOException if the directory cannot be read
+     */
+    public TablebaseGenerator(Path directory, int threadCount) throws IOException {
+        this.directory = directory;
+        tablebase = new Tablebase(directory);
+        pool = new ForkJoinPool(threadCount);
+    }
+
+    public Tablebase getTablebase() {
+        return tablebase;
+    }
+
+    /**
+     * Generates a table, first generating every table its captures and promotions lead to. The distances are
+     * kept in the mapped distance file rather than on the heap, which only holds a few megabytes of results
+     * at a time while writing them out. The file is one byte per position: 5 MB for four pieces without
+     * pawns, up to 1 GB for five with.
+     * @param name of material, such as "KQvKR"
+     * @throws IOException if a table cannot be written
+     * @throws IllegalStateException if a mate is longer than a distance byte holds
+     */
+    public void generate(String name) throws IOException {
+        EndgameTable target = new EndgameTable(name);
+        if (tablebase.contains(target.getName())) return;
+        for (String dependency : target.getDependencies()) {
+            generate(dependency);
+        }
+
+        long start = System.nanoTime();
+        table = target;
+        distances = mapDistances();
+        maxStored.set(EndgameTable.UNDECIDED);
+        forEachIndex(this::initialize);
+        int passes = 0;
+        for (int stored = 1; stored <= maxStored.get(); stored++) {
+            int finishing = stored;
+            forEachIndex((worker, index) -> retract(worker, index, finishing));
+            passes++;
+        }
+        write();
+        tablebase.open(table.getName());
+        printSummary(passes, System.nanoTime() - start);
+        distances = null;
+    }
+
+    /**
+     * Creates the distance file of the table being generated, every position undecided, and maps it for
+     * reading and writing.
+     */
+    private MappedByteBuffer mapDistances() throws IOException {
+        Path path = directory.resolve(table.getName() + EndgameTable.DISTANCE_SUFFIX);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, table.getSize());
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Scratch state of one worker thread.
+     */
+    private static class Worker {
+        final Position position = new Position();
+        final int[] moves = new int[MoveGenerator.MAX_MOVES];
+        final int[] squares = new int[EndgameTable.MAX_PIECES];
+        final int[] scratch = new int[EndgameTable.MAX_PIECES];
+        final int[] previousSquares = new int[EndgameTable.MAX_PIECES];
+        int maxStored;
+    }
+
+    @FunctionalInterface
+    private interface IndexVisitor {
+        void visit(Worker worker, int index);
+    }
+
+    private void forEachIndex(IndexVisitor visitor) {
+        pool.invoke(new RangeTask(visitor, 0, table.getSize()));
+    }
+
+    private class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final IndexVisitor visitor;
+        private final int start;
+        private final int end;
+
+        RangeTask(IndexVisitor visitor, int start, int end) {
+            this.visitor = visitor;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > CHUNK_SIZE) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new RangeTask(visitor, start, middle), new RangeTask(visitor, middle, end));
+                return;
+            }
+            Worker worker = new Worker();
+            for (int index = start; index < end; index++) {
+                visitor.visit(worker, index);
+            }
+            maxStored.accumulateAndGet(worker.maxStored, Math::max);
+        }
+    }
+
+    /**
+     * First pass: marks positions that cannot occur, mates and stalemates, and scores positions whose captures
+     * and promotions lead into already generated tables.
+     */
+    private void initialize(Worker worker, int index) {
+        int[] squares = worker.squares;
+        boolean isWhite = table.decode(index, squares);
+        if (!isCanonical(worker, index, isWhite)) {
+            distances.put(index, (byte) EndgameTable.UNUSED);
+            return;
+        }
+        Position position = worker.position;
+        table.setUp(squares, isWhite, position);
+        if (position.isInCheck(!isWhite)) {
+            distances.put(index, (byte) EndgameTable.UNUSED);
+            return;
+        }
+        int count = MoveGenerator.generateLegalMoves(position, worker.moves);
+        if (count == 0) {
+            if (position.isInCheck(isWhite)) {
+                store(worker, index, 0);
+            } else {
+                distances.put(index, (byte) EndgameTable.UNUSED);
+            }
+            return;
+        }
+        int bestWin = Integer.MAX_VALUE;
+        int slowestLoss = 0;
+        boolean isLost = true;
+        boolean hasTableMove = false;
+        for (int i = 0; i < count; i++) {
+            int move = worker.moves[i];
+            if (!isExit(move)) {
+                hasTableMove = true;
+                continue;
+            }
+            int score = probeExit(position, move);
+            if (score < 0) {
+                bestWin = Math.min(bestWin, Search.MATE + score + 1);
+            } else if (score > 0) {
+                slowestLoss = Math.max(slowestLoss, Search.MATE - score + 1);
+            } else {
+                isLost = false;
+            }
+        }
+        // A win found here may still be beaten by a shorter one inside the table, a loss is only final
+        // when no move stays in the table.
+        if (bestWin != Integer.MAX_VALUE) {
+            store(worker, index, bestWin);
+        } else if (isLost && !hasTableMove) {
+            store(worker, index, slowestLoss);
+        }
+    }
+
+    /**
+     * Checks that decoded squares are a position the table would index to the same index: no two pieces on
+     * one square, no pawns on the first or last rank, and in canonical symmetry and order.
+     */
+    private boolean isCanonical(Worker worker, int index, boolean isWhite) {
+        int[] squares = worker.squares;
+        long occupancy = 0L;
+        for (int slot = 0; slot < table.getPieceCount(); slot++) {
+            long bit = 1L << squares[slot];
+            if ((occupancy & bit) != 0) return false;
+            occupancy |= bit;
+            int rank = Position.rankOf(squares[slot]);
+            if (Position.kindOf(table.getCode(slot)) == Position.PAWN
+                    && (rank == 0 || rank == Position.BOARD_SIZE - 1)) {
+                return false;
+            }
+        }
+        System.arraycopy(squares, 0, worker.scratch, 0, table.getPieceCount());
+        return table.index(worker.scratch, isWhite) == index;
+    }
+
+    /**
+     * Later passes: every position decided at the distance being finished is taken back one move. A position
+     * that can move into a loss wins one ply later, and one whose every move now leads to a win is lost.
+     */
+    private void retract(Worker worker, int index, int finishing) {
+        if ((distances.get(index) & 0xFF) != finishing) return;
+        int[] squares = worker.squares;
+        boolean isWhite = table.decode(index, squares);
+        boolean isLoss = ((finishing - 1) & 1) == 0;
+        long occupancy = 0L;
+        for (int slot = 0; slot < table.getPieceCount(); slot++) {
+            occupancy |= 1L << squares[slot];
+        }
+        for (int slot = 0; slot < table.getPieceCount(); slot++) {
+            int code = table.getCode(slot);
+            if (Position.isWhiteCode(code) == isWhite) continue;
+            int from = squares[slot];
+            long origins = getOrigins(Position.kindOf(code), !isWhite, from, occupancy);
+            while (origins != 0) {
+                int origin = Long.numberOfTrailingZeros(origins);
+                origins &= origins - 1;
+                System.arraycopy(squares, 0, worker.scratch, 0, table.getPieceCount());
+                worker.scratch[slot] = origin;
+                int previous = table.index(worker.scratch, !isWhite);
+                int stored = distances.get(previous) & 0xFF;
+                if (isLoss) {
+                    if (stored == EndgameTable.UNDECIDED
+                            || (stored != EndgameTable.UNUSED && isWin(stored) && stored > finishing + 1)) {
+                        store(worker, previous, finishing);
+                    }
+                } else if (stored == EndgameTable.UNDECIDED) {
+                    checkLoss(worker, previous, finishing);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the squares a piece could have come from to reach a square without capturing.
+     */
+    private static long getOrigins(int kind, boolean isWhite, int square, long occupancy) {
+        long empty = ~occupancy;
+        switch (kind) {
+            case Position.PAWN -> {
+                int back = isWhite ? Position.BOARD_SIZE : -Position.BOARD_SIZE;
+                int origin = square + back;
+                int rank = Position.rankOf(origin);
+                if (rank == 0 || rank == Position.BOARD_SIZE - 1 || (empty & (1L << origin)) == 0) return 0L;
+                long origins = 1L << origin;
+                int doublePushRank = isWhite ? Position.BOARD_SIZE / 2 : Position.BOARD_SIZE / 2 - 1;
+                if (Position.rankOf(square) == doublePushRank && (empty & (1L << (origin + back))) != 0) {
+                    origins |= 1L << (origin + back);
+                }
+                return origins;
+            }
+            case Position.KNIGHT -> {
+                return Attacks.knightAttacks(square) & empty;
+            }
+            case Position.BISHOP -> {
+                return Attacks.bishopAttacks(square, occupancy) & empty;
+            }
+            case Position.ROOK -> {
+                return Attacks.rookAttacks(square, occupancy) & empty;
+            }
+            case Position.QUEEN -> {
+                return Attacks.queenAttacks(square, occupancy) & empty;
+            }
+            default -> {
+                return Attacks.kingAttacks(square) & empty;
+            }
+        }
+    }
+
+    /**
+     * Stores a loss if every move of a position leads to a decided win for the opponent.
+     */
+    private void checkLoss(Worker worker, int index, int finishing) {
+        int[] squares = worker.previousSquares;
+        boolean isWhite = table.decode(index, squares);
+        Position position = worker.position;
+        table.setUp(squares, isWhite, position);
+        int count = MoveGenerator.generateLegalMoves(position, worker.moves);
+        int slowestLoss = 0;
+        for (int i = 0; i < count; i++) {
+            int move = worker.moves[i];
+            int distance;
+            if (isExit(move)) {
+                int score = probeExit(position, move);
+                if (score <= 0) return;
+                distance = Search.MATE - score + 1;
+            } else {
+                position.makeMove(move);
+                int stored = distances.get(table.index(position, false, worker.scratch)) & 0xFF;
+                position.unmakeMove();
+                if (stored == EndgameTable.UNDECIDED || stored == EndgameTable.UNUSED
+                        || !isWin(stored) || stored > finishing) {
+                    return;
+                }
+                distance = stored;
+            }
+            slowestLoss = Math.max(slowestLoss, distance);
+        }
+        store(worker, index, slowestLoss);
+    }
+
+    private static boolean isWin(int stored) {
+        return ((stored - 1) & 1) != 0;
+    }
+
+    private static boolean isExit(int move) {
+        return Moves.isCapture(move) || Moves.promotion(move) != 0;
+    }
+
+    private int probeExit(Position position, int move) {
+        position.makeMove(move);
+        int score = tablebase.probe(position);
+        position.unmakeMove();
+        if (score == Tablebase.UNKNOWN) throw new IllegalStateException("Missing table after " + Moves.toUCI(move));
+        return score;
+    }
+
+    private void store(Worker worker, int index, int distance) {
+        if (distance > EndgameTable.MAX_DISTANCE) {
+            throw new IllegalStateException("Mate in over " + EndgameTable.MAX_DISTANCE + " plies in " + table.getName());
+        }
+        distances.put(index, (byte) (distance + 1));
+        worker.maxStored = Math.max(worker.maxStored, distance + 1);
+    }
+
+    /**
+     * Flushes the distance file, one byte per position, and writes the result file, four positions per byte,
+     * one chunk at a time.
+     */
+    private void write() throws IOException {
+        distances.force();
+        int size = table.getSize();
+        byte[] results = new byte[Math.min(WRITE_CHUNK_SIZE, (size + 3) / 4)];
+        // The result file is written last, as finding it is what marks a table as complete.
+        Path path = directory.resolve(table.getName() + EndgameTable.RESULT_SUFFIX);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int start = 0; start < size; start += results.length * 4) {
+                int end = Math.min(size, start + results.length * 4);
+                Arrays.fill(results, (byte) 0);
+                for (int index = start; index < end; index++) {
+                    results[(index - start) >>> 2] |=
+                            (byte) (EndgameTable.resultOf(distances.get(index) & 0xFF) << ((index & 3) << 1));
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(results, 0, (end - start + 3) / 4);
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+        }
+    }
+
+    private void printSummary(int passes, long elapsedNanos) {
+        long wins = 0;
+        long losses = 0;
+        long draws = 0;
+        int longest = 0;
+        for (int index = 0; index < table.getSize(); index++) {
+            int stored = distances.get(index) & 0xFF;
+            if (stored == EndgameTable.UNUSED) continue;
+            switch (EndgameTable.resultOf(stored)) {
+                case EndgameTable.WIN -> wins++;
+                case EndgameTable.LOSS -> losses++;
+                default -> draws++;
+            }
+            if (stored != EndgameTable.UNDECIDED) longest = Math.max(longest, stored - 1);
+        }
+        System.out.printf("%s: %d positions, %d wins, %d draws, %d losses, longest mate %d plies, %d passes, %.3f s%n",
+                table.getName(), table.getSize(), wins, draws, losses, longest, passes, elapsedNanos / 1e9);
+    }
+
+    /**
+     * Generates tables without a display.
+     * Usage: {@code TablebaseGenerator <directory> <threads> <material>...}, such as
+     * {@code TablebaseGenerator tables 4 KQvK KRvK KPvK KQvKR}.
+     * @param args command line arguments
+     * @throws IOException if a table cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: TablebaseGenerator <directory> <threads> <material>...");
+            return;
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(Path.of(args[0]), Integer.parseInt(args[1]));
+        try {
+            for (int i = 2; i < args.length; i++) {
+                generator.generate(args[i]);
+            }
+        } finally {
+            generator.shutdown();
+        }
+    }
+}
@@ -10,6 +10,7 @@ public class Tile extends StackPane {
     final private double tileSize;
     final private Rectangle highlight;
     final private Rectangle background;
+    final private ImageView pieceView;
     private boolean isHighlighted;
 
     /**
@@ -35,7 +36,13 @@ public class Tile extends StackPane {
         highlight.setVisible(isHighlighted);
         this.highlight = highlight;
 
-        getChildren().addAll(background, highlight);
+        // One view per tile for its whole life, setting a piece only swaps the shared image it shows.
+        ImageView pieceView = new ImageView();
+        pieceView.setPreserveRatio(true);
+        pieceView.setFitHeight(tileSize);
+        this.pieceView = pieceView;
+
+        getChildren().addAll(background, highlight, pieceView);
     }
 
     /**
@@ -51,17 +58,8 @@ public class Tile extends StackPane {
      * @param piece to set
      */
     public void setPiece(Piece piece) {
-        if (piece == null) {
-            getChildren().remove(this.piece.getGraphic());
-        } else {
-            if (this.piece != null) {
-                getChildren().remove(this.piece.getGraphic());
-            }
-            ImageView pieceGraphic = piece.getGraphic();
-            pieceGraphic.setPreserveRatio(true);
-            pieceGraphic.setFitHeight(tileSize);
-            getChildren().add(pieceGraphic);
-        }
+        if (piece == this.piece) return;
+        pieceView.setImage(PieceImages.getImage(piece));
         this.piece = piece;
     }
 
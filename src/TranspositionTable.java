@@ -0,0 +1,84 @@
+import java.util.Arrays;
+
+public class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+    private static final int MOVE_MASK = 0xFFFFF;
+    private static final int BOUND_SHIFT = 20;
+    private static final int DEPTH_SHIFT = 22;
+    private static final int SCORE_SHIFT = 32;
+
+    // Each entry is two longs: the key XORed with the data, then the data. A torn write from another thread
+    // makes the key check fail instead of returning another position's data, so no locking is needed.
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     * Constructor for a table that can be shared by several searching threads.
+     * @param megabytes size of the table, rounded down to a power of two number of entries
+     */
+    public TranspositionTable(int megabytes) {
+        long count = Long.highestOneBit(Math.max(1L, (long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY));
+        entries = new long[(int) Math.min(count, 1 << 29) * 2];
+        mask = entries.length / 2 - 1;
+    }
+
+    /**
+     * Looks up a position.
+     * @param hash Zobrist key of position
+     * @return packed entry data, or 0 if the position is not stored
+     */
+    public long probe(long hash) {
+        int index = ((int) hash & mask) << 1;
+        long data = entries[index + 1];
+        boolean isHit = (entries[index] ^ data) == hash;
+        if (Metrics.ENABLED) {
+            Metrics.increment(Metrics.Counter.TABLE_PROBES);
+            if (isHit) Metrics.increment(Metrics.Counter.TABLE_HITS);
+        }
+        return isHit ? data : 0L;
+    }
+
+    /**
+     * Stores a search result, replacing whatever shared its slot.
+     * @param hash Zobrist key of position
+     * @param move best move found, or Moves.NONE
+     * @param score score from the side to play's point of view, with mate scores relative to this node
+     * @param depth depth searched
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public void store(long hash, int move, int score, int depth, int bound) {
+        int index = ((int) hash & mask) << 1;
+        long data = (move & MOVE_MASK) | ((long) bound << BOUND_SHIFT) | ((long) depth << DEPTH_SHIFT)
+                | ((long) score << SCORE_SHIFT);
+        entries[index] = hash ^ data;
+        entries[index + 1] = data;
+    }
+
+    /**
+     * Removes every entry, for starting a new game.
+     */
+    public void clear() {
+        Arrays.fill(entries, 0L);
+    }
+
+    public static int getMove(long data) {
+        return (int) data & MOVE_MASK;
+    }
+
+    public static int getBound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    public static int getDepth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int getScore(long data) {
+        return (int) (data >> SCORE_SHIFT);
+    }
+}
@@ -0,0 +1,360 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class UciEngine {
+
+    private static final String NAME = "Chess-Java";
+    private static final String AUTHOR = "JDMCK";
+    private static final int DEFAULT_HASH_MEGABYTES = 16;
+    private static final int MAX_HASH_MEGABYTES = 4096;
+    private static final int MAX_THREADS = 256;
+    // Time kept back from every move for sending it, in milliseconds.
+    private static final int MOVE_OVERHEAD_MILLIS = 30;
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+
+    private final BufferedReader in;
+    private final Writer out;
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "uci-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Position position = new Position();
+    // A "position" command is read into this first, so a bad one leaves the last good position in place.
+    private final Position scratchPosition = new Position();
+    private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
+    private final int[] weightBuffer = new int[MoveGenerator.MAX_MOVES];
+    private ParallelSearch search;
+    private int hashMegabytes = DEFAULT_HASH_MEGABYTES;
+    private int threadCount = 1;
+    private OpeningBook openingBook;
+    private Tablebase tablebase;
+    private Future<?> searchTask;
+    // Counted down by stop when a "go infinite" search has to hold its best move until told to stop.
+    private volatile CountDownLatch infiniteLatch;
+
+    /**
+     * Constructor for an engine speaking the Universal Chess Interface (UCI) over a pair of streams.
+     * @param input commands from the GUI
+     * @param output replies to the GUI
+     */
+    public UciEngine(InputStream input, OutputStream output) {
+        in = new BufferedReader(new InputStreamReader(input, StandardCharsets.US_ASCII));
+        out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.US_ASCII));
+        Fen.parse(GameManager.START_FEN, 0, GameManager.START_FEN.length(), position);
+    }
+
+    /**
+     * Reads and answers commands until "quit" or the end of input. The calling thread only does I/O, while
+     * searches run on a thread of their own, so "isready" and "stop" are answered at once even mid-search.
+     * A command that fails is answered with an info string and the engine carries on.
+     * @throws IOException if the streams fail
+     */
+    public void run() throws IOException {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                try {
+                    if (!handleCommand(line.trim())) break;
+                } catch (NumberFormatException e) {
+                    send("info string Bad number in: " + line);
+                } catch (RuntimeException e) {
+                    // One bad line must never cost the GUI its engine. A failed "position" leaves the last good
+                    // position in place, as it is only copied over once fully read.
+                    send("info string Could not handle \"" + line + "\": " + e);
+                }
+            }
+        } finally {
+            stopSearch();
+            if (search != null) search.shutdown();
+            searchThread.shutdownNow();
+        }
+    }
+
+    /**
+     * Handles one command line.
+     * @return false once the engine should quit
+     */
+    private boolean handleCommand(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci" -> {
+                send("id name " + NAME);
+                send("id author " + AUTHOR);
+                send("option name Hash type spin default " + DEFAULT_HASH_MEGABYTES + " min 1 max " + MAX_HASH_MEGABYTES);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("option name BookFile type string default <empty>");
+                send("option name TablebasePath type string default <empty>");
+                send("uciok");
+            }
+            case "isready" -> send("readyok");
+            case "setoption" -> setOption(line);
+            case "ucinewgame" -> {
+                stopSearch();
+                if (search != null) search.clear();
+            }
+            case "position" -> {
+                stopSearch();
+                setPosition(tokens);
+            }
+            case "go" -> {
+                stopSearch();
+                go(tokens);
+            }
+            case "stop" -> stop();
+            case "quit" -> {
+                return false;
+            }
+            default -> { }
+        }
+        return true;
+    }
+
+    private void setOption(String line) {
+        int nameStart = line.indexOf(" name ");
+        if (nameStart < 0) return;
+        int valueStart = line.indexOf(" value ");
+        String name = (valueStart < 0 ? line.substring(nameStart + 6) : line.substring(nameStart + 6, valueStart)).trim();
+        String value = valueStart < 0 ? "" : line.substring(valueStart + 7).trim();
+        stopSearch();
+        try {
+            switch (name) {
+                case "Hash" -> {
+                    hashMegabytes = Math.max(1, Math.min(MAX_HASH_MEGABYTES, Integer.parseInt(value)));
+                    resetSearch();
+                }
+                case "Threads" -> {
+                    threadCount = Math.max(1, Math.min(MAX_THREADS, Integer.parseInt(value)));
+                    resetSearch();
+                }
+                case "BookFile" -> openingBook = isEmptyOption(value) ? null : new OpeningBook(Path.of(value));
+                case "TablebasePath" -> tablebase = isEmptyOption(value) ? null : new Tablebase(Path.of(value));
+                default -> send("info string Unknown option " + name);
+            }
+        } catch (NumberFormatException | IOException e) {
+            send("info string Could not set " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isEmptyOption(String value) {
+        return value.isEmpty() || value.equals("<empty>");
+    }
+
+    private void resetSearch() {
+        if (search != null) search.shutdown();
+        search = null;
+    }
+
+    /**
+     * Handles "position [startpos | fen <fen>] [moves <move>...]". The position only changes if the FEN
+     * and every move are good.
+     */
+    private void setPosition(String[] tokens) {
+        int i = 1;
+        if (i < tokens.length && tokens[i].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (i++; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                fen.append(tokens[i]).append(' ');
+            }
+            try {
+                Fen.parse(fen, 0, fen.length(), scratchPosition);
+            } catch (IllegalArgumentException e) {
+                send("info string " + e.getMessage());
+                return;
+            }
+        } else {
+            Fen.parse(GameManager.START_FEN, 0, GameManager.START_FEN.length(), scratchPosition);
+            if (i < tokens.length && tokens[i].equals("startpos")) i++;
+        }
+        if (i < tokens.length && tokens[i].equals("moves")) {
+            for (i++; i < tokens.length; i++) {
+                int move = parseMove(scratchPosition, tokens[i]);
+                if (move == Moves.NONE) {
+                    send("info string Illegal move " + tokens[i]);
+                    return;
+                }
+                scratchPosition.makeMove(move);
+            }
+        }
+        position.copyFrom(scratchPosition);
+    }
+
+    /**
+     * Finds the legal move written in UCI's long algebraic notation, such as "e2e4" or "e7e8q".
+     */
+    private int parseMove(Position position, String uci) {
+        int count = MoveGenerator.generateLegalMoves(position, moveBuffer);
+        for (int i = 0; i < count; i++) {
+            if (Moves.toUCI(moveBuffer[i]).equals(uci)) return moveBuffer[i];
+        }
+        return Moves.NONE;
+    }
+
+    /**
+     * Handles "go" with its depth, node and clock limits, starting a search on the search thread.
+     */
+    private void go(String[] tokens) {
+        int depth = Search.MAX_PLY;
+        long nodes = 0;
+        long moveTime = 0;
+        long[] times = new long[2];
+        long[] increments = new long[2];
+        int movesToGo = DEFAULT_MOVES_TO_GO;
+        boolean isInfinite = false;
+        for (int i = 1; i < tokens.length; i++) {
+            String token = tokens[i];
+            // Pondering is not offered among the options, so "go ponder" is searched like any other go.
+            if (token.equals("ponder")) continue;
+            if (token.equals("infinite")) {
+                isInfinite = true;
+                continue;
+            }
+            if (i + 1 >= tokens.length) break;
+            switch (token) {
+                case "depth" -> depth = Math.max(1, Math.min(Search.MAX_PLY, Integer.parseInt(tokens[++i])));
+                case "nodes" -> nodes = Long.parseLong(tokens[++i]);
+                case "movetime" -> moveTime = Long.parseLong(tokens[++i]);
+                case "wtime" -> times[0] = Long.parseLong(tokens[++i]);
+                case "btime" -> times[1] = Long.parseLong(tokens[++i]);
+                case "winc" -> increments[0] = Long.parseLong(tokens[++i]);
+                case "binc" -> increments[1] = Long.parseLong(tokens[++i]);
+                case "movestogo" -> movesToGo = Math.max(1, Integer.parseInt(tokens[++i]));
+                default -> { }
+            }
+        }
+        int side = position.isWhiteToPlay() ? 0 : 1;
+        long timeLimit = isInfinite ? 0
+                : moveTime > 0 ? moveTime : allocateTime(times[side], increments[side], movesToGo);
+        infiniteLatch = isInfinite ? new CountDownLatch(1) : null;
+
+        int quickMove = findQuickMove();
+        if (quickMove != Moves.NONE && !isInfinite) {
+            send("bestmove " + Moves.toUCI(quickMove));
+            return;
+        }
+        if (search == null) {
+            search = new ParallelSearch(threadCount, hashMegabytes);
+            search.setListener(this::sendInfo);
+        }
+        Position root = new Position(position);
+        int maxDepth = depth;
+        long maxNodes = nodes;
+        CountDownLatch latch = infiniteLatch;
+        search.prepare();
+        searchTask = searchThread.submit(() -> {
+            SearchResult result = search.search(root, maxDepth, timeLimit, maxNodes);
+            if (latch != null) awaitStop(latch);
+            int bestMove = result.getBestMove();
+            send(bestMove == Moves.NONE ? "bestmove 0000" : "bestmove " + Moves.toUCI(bestMove));
+        });
+    }
+
+    /**
+     * Splits the remaining clock evenly over the moves left, plus most of the increment.
+     */
+    private static long allocateTime(long time, long increment, int movesToGo) {
+        if (time <= 0) return 0;
+        long budget = time / movesToGo + increment * 3 / 4 - MOVE_OVERHEAD_MILLIS;
+        return Math.max(1, Math.min(budget, time - MOVE_OVERHEAD_MILLIS));
+    }
+
+    /**
+     * Gets a move from the opening book or the endgame tables, if either holds the position.
+     */
+    private int findQuickMove() {
+        int move = openingBook == null ? Moves.NONE : openingBook.pickMove(position, moveBuffer, weightBuffer);
+        if (move == Moves.NONE && tablebase != null
+                && Long.bitCount(position.getOccupancy()) <= tablebase.getMaxPieces()) {
+            move = tablebase.getBestMove(position, moveBuffer);
+        }
+        return move;
+    }
+
+    private static void awaitStop(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Asks a running search to stop. Its best move is sent from the search thread.
+     */
+    private void stop() {
+        if (search != null) search.stop();
+        CountDownLatch latch = infiniteLatch;
+        if (latch != null) latch.countDown();
+    }
+
+    /**
+     * Stops a running search and waits for it to send its best move, so the next command sees an idle engine.
+     */
+    private void stopSearch() {
+        if (searchTask == null) return;
+        stop();
+        try {
+            searchTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            send("info string Search failed: " + e.getCause());
+        }
+        searchTask = null;
+    }
+
+    private void sendInfo(SearchResult result) {
+        int score = result.getScore();
+        String scoreText;
+        if (Math.abs(score) >= Search.MATE - Search.MAX_PLY) {
+            int plies = Search.MATE - Math.abs(score);
+            scoreText = "mate " + (score > 0 ? (plies + 1) / 2 : -(plies / 2));
+        } else {
+            scoreText = "cp " + score;
+        }
+        long millis = result.getElapsedMillis();
+        send("info depth " + result.getDepth() + " score " + scoreText + " nodes " + result.getNodes()
+                + " nps " + result.getNodes() * 1000 / Math.max(1, millis) + " time " + millis
+                + " pv " + result.principalVariationToString());
+    }
+
+    /**
+     * Sends one line and flushes it at once, as the GUI waits on every reply. Both the I/O thread and the
+     * search thread send, so lines are never interleaved.
+     */
+    private synchronized void send(String line) {
+        try {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs the engine over standard input and output. This class does not need JavaFX, so it can be started
+     * directly on a machine without a display: {@code java UciEngine}.
+     * @param args command line arguments, unused
+     * @throws IOException if the streams fail
+     */
+    public static void main(String[] args) throws IOException {
+        new UciEngine(System.in, new FileOutputStream(FileDescriptor.out)).run();
+    }
+}
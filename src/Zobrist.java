@@ -0,0 +1,101 @@
+public final class Zobrist {
+
+    private static final long[] PIECE_SQUARE = new long[Position.PIECE_CODE_COUNT * Position.SQUARE_COUNT];
+    private static final long[] CASTLING = new long[Position.ALL_CASTLING + 1];
+    private static final long[] EN_PASSANT_FILE = new long[Position.BOARD_SIZE];
+    private static final long BLACK_TO_PLAY;
+
+    static {
+        // Fixed seed so hashes are the same on every run and can be stored.
+        long seed = 0x2F6B7A1C39D04E85L;
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            seed = next(seed);
+            PIECE_SQUARE[i] = mix(seed);
+        }
+        long[] rights = new long[4];
+        for (int i = 0; i < rights.length; i++) {
+            seed = next(seed);
+            rights[i] = mix(seed);
+        }
+        for (int mask = 0; mask < CASTLING.length; mask++) {
+            for (int i = 0; i < rights.length; i++) {
+                if ((mask & (1 << i)) != 0) CASTLING[mask] ^= rights[i];
+            }
+        }
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) {
+            seed = next(seed);
+            EN_PASSANT_FILE[i] = mix(seed);
+        }
+        seed = next(seed);
+        BLACK_TO_PLAY = mix(seed);
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Gets the key of a piece standing on a square.
+     * @param code of piece
+     * @param square of piece
+     * @return key
+     */
+    public static long piece(int code, int square) {
+        return PIECE_SQUARE[code * Position.SQUARE_COUNT + square];
+    }
+
+    /**
+     * Gets the key of a set of castling rights. The empty set has key 0.
+     * @param castlingRights bitmask
+     * @return key
+     */
+    public static long castling(int castlingRights) {
+        return CASTLING[castlingRights];
+    }
+
+    /**
+     * Gets the key of an en passant square. No square has key 0.
+     * @param enPassantSquare square, or Position.NO_SQUARE
+     * @return key
+     */
+    public static long enPassant(int enPassantSquare) {
+        return enPassantSquare == Position.NO_SQUARE ? 0L : EN_PASSANT_FILE[Position.fileOf(enPassantSquare)];
+    }
+
+    /**
+     * Gets the key toggled whenever the side to play changes.
+     * @return key
+     */
+    public static long blackToPlay() {
+        return BLACK_TO_PLAY;
+    }
+
+    /**
+     * Computes the full key of a position from scratch.
+     * @param position to hash
+     * @return key
+     */
+    public static long hash(Position position) {
+        long hash = 0L;
+        for (int code = 0; code < Position.PIECE_CODE_COUNT; code++) {
+            long pieces = position.getPieceBoard(code);
+            while (pieces != 0) {
+                hash ^= piece(code, Long.numberOfTrailingZeros(pieces));
+                pieces &= pieces - 1;
+            }
+        }
+        hash ^= castling(position.getCastlingRights());
+        hash ^= enPassant(position.getEnPassantSquare());
+        if (!position.isWhiteToPlay()) hash ^= BLACK_TO_PLAY;
+        return hash;
+    }
+
+    private static long next(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}